@@ -0,0 +1,151 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.Set;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Bounded LRU cache of compiled scripts keyed by the engine and the script content, so macros with equal names
+ * from different projects do not share a script and a changed content is compiled again. The bound is expressed
+ * in characters of cached content, like for {@link org.qubership.atp.macros.core.parser.MacrosTemplateCache}.
+ * Compilation errors are cached too, by engine factory and content, so a broken macros is compiled once.
+ */
+public class CompiledScriptCache {
+
+    public static final long DEFAULT_MAX_WEIGHT = 8L * 1024 * 1024;
+    public static final long DEFAULT_MAX_FAILURES = 1_000;
+
+    private final Cache<Key, CompiledScript> scripts;
+    private final Cache<FailureKey, ScriptException> failures = CacheBuilder.newBuilder()
+            .maximumSize(DEFAULT_MAX_FAILURES)
+            .build();
+
+    public CompiledScriptCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxWeight max summary length of cached contents
+     */
+    public CompiledScriptCache(long maxWeight) {
+        this.scripts = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, CompiledScript script) -> key.content.length())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a compiled script of the content for the engine, compiling it on cache miss.
+     *
+     * @param engine  compilable engine the script is compiled by
+     * @param content script content
+     * @return compiled script
+     * @throws ScriptException if the content can not be compiled, the error of the first compilation
+     */
+    @Nonnull
+    public CompiledScript get(@Nonnull ScriptEngine engine, @Nonnull String content) throws ScriptException {
+        Key key = new Key(engine, content);
+        CompiledScript script = scripts.getIfPresent(key);
+        if (script == null) {
+            FailureKey failureKey = new FailureKey(engine.getFactory(), content);
+            ScriptException failure = failures.getIfPresent(failureKey);
+            if (failure != null) {
+                throw failure;
+            }
+            try {
+                script = ((Compilable) engine).compile(content);
+            } catch (ScriptException e) {
+                failures.put(failureKey, e);
+                throw e;
+            }
+            scripts.put(key, script);
+        }
+        return script;
+    }
+
+    /**
+     * Remove compiled scripts of the content for all engines.
+     *
+     * @param content script content
+     */
+    public void invalidate(@Nonnull String content) {
+        invalidate(Set.of(content));
+    }
+
+    /**
+     * Remove compiled scripts of the contents for all engines.
+     *
+     * @param contents script contents
+     */
+    public void invalidate(@Nonnull Set<String> contents) {
+        scripts.asMap().keySet().removeIf(key -> contents.contains(key.content));
+        failures.asMap().keySet().removeIf(key -> contents.contains(key.content));
+    }
+
+    /**
+     * Remove compiled scripts of an engine which is not used anymore.
+     *
+     * @param engine engine
+     */
+    public void invalidate(@Nonnull ScriptEngine engine) {
+        scripts.asMap().keySet().removeIf(key -> key.engine == engine);
+    }
+
+    public void invalidateAll() {
+        scripts.invalidateAll();
+        failures.invalidateAll();
+    }
+
+    public long size() {
+        return scripts.size();
+    }
+
+    public long failuresSize() {
+        return failures.size();
+    }
+
+    @Nonnull
+    public CacheStats getStats() {
+        return scripts.stats();
+    }
+
+    /**
+     * Engines are compared by identity, the content string caches its hash code.
+     */
+    private record Key(ScriptEngine engine, String content) {
+    }
+
+    /**
+     * Engines of one factory compile a content alike, factories are compared by identity.
+     */
+    private record FailureKey(ScriptEngineFactory factory, String content) {
+    }
+}
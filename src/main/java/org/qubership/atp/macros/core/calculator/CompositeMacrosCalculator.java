@@ -0,0 +1,202 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import javax.script.Compilable;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+
+import org.qubership.atp.macros.core.exception.MacrosCompilationException;
+import org.qubership.atp.macros.core.exception.MacrosException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.AbstractContext;
+import org.qubership.atp.macros.core.registry.MacroRegistry;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Routes each macros to the calculator of its engine. Engine names are resolved to calculators once, when the
+ * calculator is built, so a call is one lookup by engine name; macros of an unknown engine are calculated to null
+ * like by {@link ScriptMacrosCalculator}, use {@link #checkEngines(MacroRegistry)} to find them on registry load.
+ */
+public class CompositeMacrosCalculator implements MacrosCalculator {
+    private final Map<String, MacrosCalculator> calculators;
+    private final List<MacrosCalculator> distinctCalculators;
+
+    /**
+     * Constructor.
+     *
+     * @param calculators calculators by engine name
+     */
+    public CompositeMacrosCalculator(@Nonnull Map<String, ? extends MacrosCalculator> calculators) {
+        this.calculators = new HashMap<>(calculators);
+        Set<MacrosCalculator> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(calculators.values());
+        this.distinctCalculators = new ArrayList<>(distinct);
+    }
+
+    /**
+     * Build the lookup of script engines which can be compiled and invoked, all names of such an engine share
+     * one {@link ScriptMacrosCalculator}, and of the {@link MacrosCalculatorProvider}s of the class path, which
+     * take precedence over script engines with the same names.
+     *
+     * @param scriptEngineManager manager of script engines
+     * @return calculator
+     */
+    @Nonnull
+    public static CompositeMacrosCalculator create(@Nonnull ScriptEngineManager scriptEngineManager) {
+        Map<String, MacrosCalculator> calculators = new HashMap<>();
+        ScriptMacrosCalculator scriptCalculator = new ScriptMacrosCalculator(scriptEngineManager);
+        for (ScriptEngineFactory factory : scriptEngineManager.getEngineFactories()) {
+            ScriptEngine engine = factory.getScriptEngine();
+            if (engine instanceof Invocable && engine instanceof Compilable) {
+                for (String name : factory.getNames()) {
+                    calculators.put(name, scriptCalculator);
+                }
+            }
+        }
+        for (MacrosCalculatorProvider provider : ServiceLoader.load(MacrosCalculatorProvider.class)) {
+            Set<String> names = provider.getEngineNames();
+            if (names.isEmpty()) {
+                continue;
+            }
+            MacrosCalculator calculator = provider.createCalculator();
+            for (String name : names) {
+                calculators.put(name, calculator);
+            }
+        }
+        return new CompositeMacrosCalculator(calculators);
+    }
+
+    @Nullable
+    @Override
+    public String calculate(@Nonnull Macros macros, @Nullable List<String> arguments,
+                            @Nonnull AbstractContext context) {
+        MacrosCalculator calculator = macros.getEngine() == null ? null : calculators.get(macros.getEngine());
+        return calculator == null ? null : calculator.calculate(macros, arguments, context);
+    }
+
+    @Nonnull
+    @Override
+    public Outcome calculateOutcome(@Nonnull Macros macros, @Nullable List<String> arguments,
+                                    @Nonnull AbstractContext context) {
+        MacrosCalculator calculator = macros.getEngine() == null ? null : calculators.get(macros.getEngine());
+        return calculator == null ? Outcome.success(null) : calculator.calculateOutcome(macros, arguments, context);
+    }
+
+    /**
+     * Open a batch of every calculator.
+     *
+     * @return batch which closes batches of all calculators
+     */
+    @Nonnull
+    @Override
+    public Batch openBatch() {
+        List<Batch> batches = new ArrayList<>(distinctCalculators.size());
+        for (MacrosCalculator calculator : distinctCalculators) {
+            batches.add(calculator.openBatch());
+        }
+        return () -> batches.forEach(Batch::close);
+    }
+
+    /**
+     * Warm up the macros of each engine with its calculator, macros of unknown engines fail.
+     *
+     * @param macros   macros
+     * @param executor executor to run the work on
+     * @return future of the failures by macros name
+     */
+    @Nonnull
+    @Override
+    public CompletableFuture<Map<String, MacrosCompilationException>> warmUp(@Nonnull Collection<Macros> macros,
+                                                                            @Nonnull Executor executor) {
+        Map<String, MacrosCompilationException> failures = new ConcurrentHashMap<>();
+        Map<MacrosCalculator, List<Macros>> macrosByCalculator = new IdentityHashMap<>();
+        for (Macros macro : macros) {
+            MacrosCalculator calculator = macro.getEngine() == null ? null : calculators.get(macro.getEngine());
+            if (calculator == null) {
+                failures.put(macro.getName(),
+                        new MacrosCompilationException("Engine %s is unknown".formatted(macro.getEngine())));
+            } else {
+                macrosByCalculator.computeIfAbsent(calculator, key -> new ArrayList<>()).add(macro);
+            }
+        }
+        List<CompletableFuture<?>> warmUps = new ArrayList<>();
+        macrosByCalculator.forEach((calculator, calculatorMacros) ->
+                warmUps.add(calculator.warmUp(calculatorMacros, executor).thenAccept(failures::putAll)));
+        return CompletableFuture.allOf(warmUps.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> new TreeMap<>(failures));
+    }
+
+    @Override
+    public void invalidate(@Nonnull Collection<Macros> macros) {
+        Set<MacrosCalculator> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(calculators.values());
+        distinct.forEach(calculator -> calculator.invalidate(macros));
+    }
+
+    @Override
+    public void close() {
+        distinctCalculators.forEach(MacrosCalculator::close);
+    }
+
+    @Nullable
+    public MacrosCalculator getCalculator(@Nonnull String engineName) {
+        return calculators.get(engineName);
+    }
+
+    /**
+     * Check that every macros of the registry has a known engine.
+     *
+     * @param registry registry, registries which can not list their macros are not checked
+     * @throws MacrosException with the unknown engines and their macros
+     */
+    public void checkEngines(@Nonnull MacroRegistry registry) throws MacrosException {
+        Set<String> names = registry.getMacrosNames();
+        if (names == null) {
+            return;
+        }
+        Map<String, Set<String>> unknown = new HashMap<>();
+        for (String name : names) {
+            Macros macros = registry.getMacros(name);
+            if (macros != null && (macros.getEngine() == null || !calculators.containsKey(macros.getEngine()))) {
+                unknown.computeIfAbsent(String.valueOf(macros.getEngine()), engine -> new TreeSet<>()).add(name);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new MacrosException("Macros with unknown engines: " + unknown);
+        }
+    }
+}
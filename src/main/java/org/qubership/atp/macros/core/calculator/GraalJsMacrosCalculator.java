@@ -0,0 +1,125 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.qubership.atp.macros.core.model.Macros;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Calculates JavaScript macros with the Graal.js script engine when it is on the class path. Engines of one
+ * factory share a polyglot engine, so the sources parsed by one of them are reused by the others, and each
+ * bindings is a polyglot context: contexts of scripts which only declare functions are created once per pooled
+ * engine and reused, like the bindings of {@link ScriptMacrosCalculator}, and each thread keeps the contexts of
+ * the other scripts it evaluated. Host access and Nashorn compatibility are enabled in every context, because the
+ * macros scripts use {@code Packages} and Java classes.
+ */
+public class GraalJsMacrosCalculator extends ScriptMacrosCalculator {
+    public static final String ENGINE_NAME = "graal.js";
+    private final ThreadLocal<Map<CompiledScript, Bindings>> threadBindings =
+            ThreadLocal.withInitial(WeakHashMap::new);
+
+    /**
+     * Constructor with a pool of one engine per available processor.
+     *
+     * @param scriptEngineManager manager which creates engines
+     */
+    public GraalJsMacrosCalculator(@Nonnull ScriptEngineManager scriptEngineManager) {
+        super(new ScriptEnginePool(scriptEngineManager, Runtime.getRuntime().availableProcessors(),
+                GraalJsMacrosCalculator::configure));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param enginePool pool of engines set up with {@link #configure(ScriptEngine)}
+     */
+    public GraalJsMacrosCalculator(@Nonnull ScriptEnginePool enginePool) {
+        super(enginePool);
+    }
+
+    @Override
+    protected String getEngineName(@Nonnull Macros macros) {
+        return ENGINE_NAME;
+    }
+
+    @Nonnull
+    @Override
+    protected Bindings createBindings(@Nonnull ScriptEngine engine) {
+        Bindings bindings = engine.createBindings();
+        putContextOptions(bindings);
+        return bindings;
+    }
+
+    /**
+     * Bindings kept by the calling thread for the script, a polyglot context is costly to create and is used by one
+     * thread at a time. The script is still evaluated on every call, like in a batch.
+     */
+    @Nonnull
+    @Override
+    protected Bindings getCallBindings(@Nonnull CompiledScript compiledScript) {
+        return threadBindings.get().computeIfAbsent(compiledScript, script -> createBindings(script.getEngine()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Object invokeMain(@Nonnull CompiledScript compiledScript, @Nonnull Bindings bindings,
+                                @Nonnull Object[] arguments) throws ScriptException, NoSuchMethodException {
+        Object main = bindings.get("main");
+        if (!(main instanceof Function)) {
+            throw new NoSuchMethodException("main");
+        }
+        return ((Function<Object[], Object>) main).apply(arguments);
+    }
+
+    /**
+     * Set up an engine before it compiles scripts. Its default context compiles them and all contexts of a shared
+     * polyglot engine must have the same host access, so the default context gets the options of the bindings.
+     *
+     * @param engine Graal.js engine
+     */
+    public static void configure(@Nonnull ScriptEngine engine) {
+        putContextOptions(engine.getBindings(ScriptContext.ENGINE_SCOPE));
+    }
+
+    private static void putContextOptions(@Nonnull Bindings bindings) {
+        bindings.put("polyglot.js.allowHostAccess", true);
+        bindings.put("polyglot.js.allowHostClassLookup", true);
+        bindings.put("polyglot.js.nashorn-compat", true);
+    }
+
+    /**
+     * Check that the Graal.js engine is on the class path.
+     *
+     * @param scriptEngineManager manager of script engines
+     * @return true if the manager has the engine
+     */
+    public static boolean isAvailable(@Nonnull ScriptEngineManager scriptEngineManager) {
+        return scriptEngineManager.getEngineByName(ENGINE_NAME) != null;
+    }
+}
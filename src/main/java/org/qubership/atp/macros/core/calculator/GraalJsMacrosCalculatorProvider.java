@@ -0,0 +1,59 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Provides {@link GraalJsMacrosCalculator} for the {@code graal.js} engine name. The other names of the Graal.js
+ * engine, including {@code javascript}, are claimed only when the {@value #ROUTE_JAVASCRIPT_PROPERTY} system
+ * property is {@code true}, so JavaScript macros move from Nashorn to Graal.js only on request. Without Graal.js
+ * the provider has no engine names and changes nothing.
+ */
+public class GraalJsMacrosCalculatorProvider implements MacrosCalculatorProvider {
+    public static final String ROUTE_JAVASCRIPT_PROPERTY = "atp.macros.graaljs.javascript";
+    private final ScriptEngineManager scriptEngineManager = new ScriptEngineManager();
+
+    @Nonnull
+    @Override
+    public Set<String> getEngineNames() {
+        boolean routeJavascript = Boolean.getBoolean(ROUTE_JAVASCRIPT_PROPERTY);
+        Set<String> names = new HashSet<>();
+        for (ScriptEngineFactory factory : scriptEngineManager.getEngineFactories()) {
+            if (factory.getNames().contains(GraalJsMacrosCalculator.ENGINE_NAME)) {
+                if (routeJavascript) {
+                    names.addAll(factory.getNames());
+                } else {
+                    names.add(GraalJsMacrosCalculator.ENGINE_NAME);
+                }
+            }
+        }
+        return names;
+    }
+
+    @Nonnull
+    @Override
+    public MacrosCalculator createCalculator() {
+        return new GraalJsMacrosCalculator(scriptEngineManager);
+    }
+}
@@ -16,14 +16,97 @@
 
 package org.qubership.atp.macros.core.calculator;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import org.qubership.atp.macros.core.exception.MacrosCompilationException;
 import org.qubership.atp.macros.core.model.Macros;
 import org.qubership.atp.macros.core.processor.AbstractContext;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
-public interface MacrosCalculator {
+public interface MacrosCalculator extends AutoCloseable {
     String calculate(@Nonnull Macros macros, @Nullable List<String> arguments, @Nonnull AbstractContext context);
+
+    /**
+     * Calculate the macros telling a result from an error message returned in its place, so callers like caches can
+     * keep only results.
+     *
+     * @param macros    macros
+     * @param arguments arguments of the call
+     * @param context   context of the call
+     * @return outcome, the result of {@link #calculate(Macros, List, AbstractContext)} as a success by default
+     */
+    @Nonnull
+    default Outcome calculateOutcome(@Nonnull Macros macros, @Nullable List<String> arguments,
+                                     @Nonnull AbstractContext context) {
+        return Outcome.success(calculate(macros, arguments, context));
+    }
+
+    /**
+     * Open a batch on the current thread. Until the batch is closed the calculator may share state between its calls,
+     * batches opened inside of an open batch join it.
+     *
+     * @return batch to close when the evaluations of the batch are done
+     */
+    @Nonnull
+    default Batch openBatch() {
+        return () -> {
+        };
+    }
+
+    /**
+     * Prepare the calculation of macros, like compiling their scripts, so their first calls do not pay for it.
+     *
+     * @param macros   macros
+     * @param executor executor to run the work on
+     * @return future of the failures by macros name
+     */
+    @Nonnull
+    default CompletableFuture<Map<String, MacrosCompilationException>> warmUp(@Nonnull Collection<Macros> macros,
+                                                                            @Nonnull Executor executor) {
+        return CompletableFuture.completedFuture(Map.of());
+    }
+
+    /**
+     * Drop everything prepared or cached for the macros, which have been changed or deleted.
+     *
+     * @param macros previous versions of the macros
+     */
+    default void invalidate(@Nonnull Collection<Macros> macros) {
+    }
+
+    /**
+     * Release the threads and other resources of the calculator, it is not used after that.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Result of a calculation or the error message which takes its place.
+     *
+     * @param result result or error message
+     * @param failed true if the result is an error message
+     */
+    record Outcome(@Nullable String result, boolean failed) {
+        @Nonnull
+        public static Outcome success(@Nullable String result) {
+            return new Outcome(result, false);
+        }
+
+        @Nonnull
+        public static Outcome failure(@Nonnull String message) {
+            return new Outcome(message, true);
+        }
+    }
+
+    interface Batch extends AutoCloseable {
+        @Override
+        void close();
+    }
 }
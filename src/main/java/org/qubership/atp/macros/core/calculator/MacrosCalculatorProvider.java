@@ -0,0 +1,39 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.Set;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Service provider of a calculator for macros of some engines, found by {@link java.util.ServiceLoader}
+ * when {@link CompositeMacrosCalculator#create(javax.script.ScriptEngineManager)} builds the engine lookup.
+ */
+public interface MacrosCalculatorProvider {
+
+    /**
+     * Engine names, as in {@link org.qubership.atp.macros.core.model.Macros#getEngine()}, of the calculator.
+     *
+     * @return engine names
+     */
+    @Nonnull
+    Set<String> getEngineNames();
+
+    @Nonnull
+    MacrosCalculator createCalculator();
+}
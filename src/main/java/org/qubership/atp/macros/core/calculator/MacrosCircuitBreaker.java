@@ -0,0 +1,149 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.qubership.atp.macros.core.model.Macros;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Circuit breaker by macros and content: after the threshold of failures in a row a macros is not calculated
+ * for the cool-down period, its calls get the last error instead. Calls after the cool-down try again, a success
+ * closes the breaker and a failure opens it for one more period. A changed content has a breaker of its own.
+ */
+public class MacrosCircuitBreaker {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final Duration DEFAULT_COOL_DOWN = Duration.ofSeconds(30);
+    private static final long MAX_MACROS = 10_000;
+
+    private final int failureThreshold;
+    private final long coolDownNanos;
+    private final LongSupplier nanoTime;
+    private final Cache<Key, State> states = CacheBuilder.newBuilder()
+            .maximumSize(MAX_MACROS)
+            .build();
+    private final LongAdder shortCircuits = new LongAdder();
+
+    public MacrosCircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_COOL_DOWN);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param failureThreshold number of failures in a row which opens the breaker
+     * @param coolDown         time the breaker stays open
+     */
+    public MacrosCircuitBreaker(int failureThreshold, @Nonnull Duration coolDown) {
+        this(failureThreshold, coolDown, System::nanoTime);
+    }
+
+    MacrosCircuitBreaker(int failureThreshold, @Nonnull Duration coolDown, @Nonnull LongSupplier nanoTime) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold should be positive, but was " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.coolDownNanos = coolDown.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Check whether calls of the macros are short-circuited.
+     *
+     * @param macros macros
+     * @return last error of the macros if the breaker is open, null if the macros should be calculated
+     */
+    @Nullable
+    public String check(@Nonnull Macros macros) {
+        State state = states.getIfPresent(Key.of(macros));
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            if (state.failures < failureThreshold || nanoTime.getAsLong() - state.openedAt >= coolDownNanos) {
+                return null;
+            }
+            shortCircuits.increment();
+            return state.error;
+        }
+    }
+
+    public void recordSuccess(@Nonnull Macros macros) {
+        states.invalidate(Key.of(macros));
+    }
+
+    /**
+     * Count a failure of the macros, opening the breaker when the failures reach the threshold.
+     *
+     * @param macros macros
+     * @param error  error the calls get while the breaker is open
+     */
+    public void recordFailure(@Nonnull Macros macros, @Nonnull String error) {
+        State state = states.asMap().computeIfAbsent(Key.of(macros), key -> new State());
+        synchronized (state) {
+            state.failures++;
+            state.error = error;
+            if (state.failures >= failureThreshold) {
+                state.openedAt = nanoTime.getAsLong();
+            }
+        }
+    }
+
+    /**
+     * Open the breaker of the macros at once, like for a failure which should not be tried again soon.
+     *
+     * @param macros macros
+     * @param error  error the calls get while the breaker is open
+     */
+    public void open(@Nonnull Macros macros, @Nonnull String error) {
+        State state = states.asMap().computeIfAbsent(Key.of(macros), key -> new State());
+        synchronized (state) {
+            state.failures = Math.max(state.failures + 1, failureThreshold);
+            state.error = error;
+            state.openedAt = nanoTime.getAsLong();
+        }
+    }
+
+    /**
+     * Number of calls which got an error of an open breaker.
+     *
+     * @return count
+     */
+    public long getShortCircuitsCount() {
+        return shortCircuits.sum();
+    }
+
+    private record Key(UUID projectUuid, String name, String content) {
+        static Key of(@Nonnull Macros macros) {
+            return new Key(macros.getProjectUuid(), macros.getName(), macros.getContent());
+        }
+    }
+
+    private static final class State {
+        private int failures;
+        private long openedAt;
+        private String error;
+    }
+}
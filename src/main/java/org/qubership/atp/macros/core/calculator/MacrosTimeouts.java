@@ -0,0 +1,70 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.qubership.atp.macros.core.model.Macros;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Execution time budgets of macros: a global one and budgets of single macros by name, which take precedence.
+ */
+public class MacrosTimeouts {
+    @Nullable
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> macrosTimeouts;
+
+    /**
+     * Constructor.
+     *
+     * @param defaultTimeout budget of all macros or null for no limit
+     * @param macrosTimeouts budgets by macros name
+     */
+    public MacrosTimeouts(@Nullable Duration defaultTimeout, @Nonnull Map<String, Duration> macrosTimeouts) {
+        checkPositive(defaultTimeout);
+        macrosTimeouts.values().forEach(MacrosTimeouts::checkPositive);
+        this.defaultTimeout = defaultTimeout;
+        this.macrosTimeouts = new HashMap<>(macrosTimeouts);
+    }
+
+    public MacrosTimeouts(@Nonnull Duration defaultTimeout) {
+        this(defaultTimeout, Map.of());
+    }
+
+    /**
+     * Budget of a macros.
+     *
+     * @param macros macros
+     * @return budget or null if the macros has no limit
+     */
+    @Nullable
+    public Duration getTimeout(@Nonnull Macros macros) {
+        Duration timeout = macros.getName() == null ? null : macrosTimeouts.get(macros.getName());
+        return timeout == null ? defaultTimeout : timeout;
+    }
+
+    private static void checkPositive(@Nullable Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("Timeout should be positive, but was " + timeout);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.qubership.atp.macros.core.exception.MacrosCompilationException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.registry.MacroRegistry;
+
+import jakarta.annotation.Nonnull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warm-up of all macros of a registry in the background, so the first calls after a start do not compile scripts.
+ * A service can wait for {@link #getReady()} before it takes traffic; the future completes when every macros was
+ * warmed up, with all macros which failed, or exceptionally with the error of the calculator if the warm-up itself
+ * failed, so the service does not start as if every macros was ready.
+ */
+@Slf4j
+public class MacrosWarmUp {
+    private final int totalCount;
+    private final CompletableFuture<Map<String, MacrosCompilationException>> ready;
+
+    private MacrosWarmUp(int totalCount, @Nonnull CompletableFuture<Map<String, MacrosCompilationException>> ready) {
+        this.totalCount = totalCount;
+        this.ready = ready;
+    }
+
+    /**
+     * Start the warm-up on a pool of {@code parallelism} daemon threads, which is shut down when the warm-up is done.
+     *
+     * @param registry    registry
+     * @param calculator  calculator of the macros
+     * @param parallelism number of threads
+     * @return started warm-up
+     */
+    @Nonnull
+    public static MacrosWarmUp start(@Nonnull MacroRegistry registry, @Nonnull MacrosCalculator calculator,
+                                     int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive, but was " + parallelism);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "macros-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MacrosWarmUp warmUp = start(registry, calculator, executor);
+        warmUp.ready.whenComplete((failures, error) -> executor.shutdown());
+        return warmUp;
+    }
+
+    /**
+     * Start the warm-up. Registries which can not list their macros have nothing to warm up.
+     *
+     * @param registry   registry
+     * @param calculator calculator of the macros
+     * @param executor   executor to run the work on
+     * @return started warm-up
+     */
+    @Nonnull
+    public static MacrosWarmUp start(@Nonnull MacroRegistry registry, @Nonnull MacrosCalculator calculator,
+                                     @Nonnull Executor executor) {
+        List<Macros> macrosList = new ArrayList<>();
+        Set<String> names = registry.getMacrosNames();
+        if (names != null) {
+            for (String name : names) {
+                Macros macros = registry.getMacros(name);
+                if (macros != null) {
+                    macrosList.add(macros);
+                }
+            }
+        }
+        CompletableFuture<Map<String, MacrosCompilationException>> ready = new CompletableFuture<>();
+        calculator.warmUp(macrosList, executor).whenComplete((failures, error) -> {
+            if (error != null) {
+                log.error("Warm-up of {} macros failed", macrosList.size(), error);
+                ready.completeExceptionally(error);
+            } else {
+                if (failures.isEmpty()) {
+                    log.info("Warm-up of {} macros is done", macrosList.size());
+                } else {
+                    log.warn("Warm-up of {} macros is done, failed macros: {}", macrosList.size(),
+                            failures.keySet());
+                }
+                ready.complete(Collections.unmodifiableMap(failures));
+            }
+        });
+        return new MacrosWarmUp(macrosList.size(), ready);
+    }
+
+    /**
+     * Future of the end of the warm-up.
+     *
+     * @return future which completes with the failures by macros name or exceptionally if the warm-up failed
+     */
+    @Nonnull
+    public CompletableFuture<Map<String, MacrosCompilationException>> getReady() {
+        return ready.copy();
+    }
+
+    /**
+     * Check that the warm-up is done and did not fail.
+     *
+     * @return true if the macros were warmed up
+     */
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+}
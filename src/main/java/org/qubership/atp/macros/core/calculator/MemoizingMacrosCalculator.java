@@ -0,0 +1,207 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.qubership.atp.macros.core.exception.MacrosCompilationException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.AbstractContext;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Memoizes results of macros declared deterministic: a result depends only on the macros content, the arguments
+ * and the declared context parameters, which are all part of the cache key, so a changed macros or context gets
+ * a new result. A declaration covers the macros of that name in every project. Macros whose results depend on
+ * the time or on random values can not be declared.
+ */
+public class MemoizingMacrosCalculator implements MacrosCalculator {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    /**
+     * Global macros which return context parameters, with the parameters they read.
+     */
+    public static final Map<String, Set<String>> GLOBAL_CONTEXT_MACROS = Map.ofEntries(
+            Map.entry("EXECUTION_REQUEST_ID", Set.of("EXECUTION_REQUEST_ID")),
+            Map.entry("EXECUTION_REQUEST_KEY", Set.of("EXECUTION_REQUEST_KEY")),
+            Map.entry("EXECUTION_REQUEST_NAME", Set.of("EXECUTION_REQUEST_NAME")),
+            Map.entry("EXECUTION_REQUEST_NUMBER", Set.of("EXECUTION_REQUEST_NUMBER")),
+            Map.entry("EXECUTION_REQUEST_SHORT_NAME", Set.of("EXECUTION_REQUEST_SHORT_NAME")),
+            Map.entry("SDS_DATA_SET", Set.of("DATASET_NAME")),
+            Map.entry("SDS_DATA_SET_LIST", Set.of("DATASET_STORAGE_NAME")),
+            Map.entry("SDS_FULL_NAME", Set.of("VISIBILITY_AREA_NAME", "DATASET_STORAGE_NAME", "DATASET_NAME")),
+            Map.entry("SDS_VISIBILITY_AREA", Set.of("VISIBILITY_AREA_NAME")),
+            Map.entry("TEST_CASE_NAME", Set.of("TEST_CASE_NAME")),
+            Map.entry("TEST_CASE_SHORT_NAME", Set.of("TEST_CASE_SHORT_NAME")),
+            Map.entry("TEST_ENV_NAME", Set.of("ENV_NAME")),
+            Map.entry("TEST_RUN_ID", Set.of("TEST_RUN_ID")),
+            Map.entry("TEST_RUN_KEY", Set.of("TEST_RUN_KEY")),
+            Map.entry("TEST_RUN_NAME", Set.of("TEST_RUN_NAME")),
+            Map.entry("TEST_RUN_NUMBER", Set.of("TEST_RUN_NUMBER")),
+            Map.entry("TEST_RUN_SHORT_NAME", Set.of("TEST_RUN_SHORT_NAME")));
+
+    private static final Set<String> VOLATILE_MACROS = Set.of("DATE", "GET_DAY", "GET_HOUR", "GET_MIN", "GET_MONTH",
+            "GET_SEC", "GET_YEAR", "SHIFT_DAY", "SHIFT_HOUR", "SHIFT_MIN", "SHIFT_MONTH", "SHIFT_SEC", "SHIFT_YEAR",
+            "MOVE_DATE", "RAND", "RANDBETWEEN", "UUID", "RAND_UUID", "RANDOM", "CHARS");
+
+    private final MacrosCalculator delegate;
+    private final Map<String, List<String>> contextKeys = new HashMap<>();
+    private final Cache<Key, String> results;
+
+    /**
+     * Constructor with a cache of default size.
+     *
+     * @param delegate      calculator of the macros
+     * @param deterministic context parameters read by deterministic macros, by macros name
+     */
+    public MemoizingMacrosCalculator(@Nonnull MacrosCalculator delegate,
+                                     @Nonnull Map<String, ? extends Collection<String>> deterministic) {
+        this(delegate, deterministic, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param delegate      calculator of the macros
+     * @param deterministic context parameters read by deterministic macros, by macros name
+     * @param maximumSize   maximal number of cached results
+     * @throws IllegalArgumentException if a macros depending on the time or random values is declared
+     */
+    public MemoizingMacrosCalculator(@Nonnull MacrosCalculator delegate,
+                                     @Nonnull Map<String, ? extends Collection<String>> deterministic,
+                                     long maximumSize) {
+        deterministic.forEach((name, keys) -> {
+            if (VOLATILE_MACROS.contains(name)) {
+                throw new IllegalArgumentException("Macros %s can not be memoized".formatted(name));
+            }
+            contextKeys.put(name, List.copyOf(keys));
+        });
+        this.delegate = delegate;
+        this.results = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    @Nullable
+    @Override
+    public String calculate(@Nonnull Macros macros, @Nullable List<String> arguments,
+                            @Nonnull AbstractContext context) {
+        return calculateOutcome(macros, arguments, context).result();
+    }
+
+    /**
+     * Calculate the macros or take its memoized result. Only successful results are memoized, the calls after an
+     * error calculate the macros again.
+     */
+    @Nonnull
+    @Override
+    public Outcome calculateOutcome(@Nonnull Macros macros, @Nullable List<String> arguments,
+                                    @Nonnull AbstractContext context) {
+        List<String> keys = macros.getName() == null ? null : contextKeys.get(macros.getName());
+        if (keys == null) {
+            return delegate.calculateOutcome(macros, arguments, context);
+        }
+        Key key = new Key(macros.getProjectUuid(), macros.getName(), macros.getContent(),
+                arguments == null ? List.of() : new ArrayList<>(arguments),
+                contextValues(keys, ((AbstractContext<?>) context).getContextParameters()));
+        String result = results.getIfPresent(key);
+        if (result != null) {
+            return Outcome.success(result);
+        }
+        Outcome outcome = delegate.calculateOutcome(macros, arguments, context);
+        if (!outcome.failed() && outcome.result() != null) {
+            results.put(key, outcome.result());
+        }
+        return outcome;
+    }
+
+    @Nonnull
+    private static List<Object> contextValues(@Nonnull List<String> keys,
+                                              @Nullable Map<String, Object> contextParameters) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(contextParameters == null ? null : contextParameters.get(key));
+        }
+        return values;
+    }
+
+    @Nonnull
+    @Override
+    public Batch openBatch() {
+        return delegate.openBatch();
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Map<String, MacrosCompilationException>> warmUp(@Nonnull Collection<Macros> macros,
+                                                                            @Nonnull Executor executor) {
+        return delegate.warmUp(macros, executor);
+    }
+
+    /**
+     * Drop the results of the macros and pass them to the delegate.
+     *
+     * @param macros previous versions of the macros
+     */
+    @Override
+    public void invalidate(@Nonnull Collection<Macros> macros) {
+        Set<List<Object>> stale = new HashSet<>();
+        for (Macros macro : macros) {
+            stale.add(Arrays.asList(macro.getProjectUuid(), macro.getName()));
+        }
+        results.asMap().keySet().removeIf(key -> stale.contains(Arrays.asList(key.projectUuid(), key.name())));
+        delegate.invalidate(macros);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    @Nonnull
+    public CacheStats getStats() {
+        return results.stats();
+    }
+
+    /**
+     * The content stands for the macros version, context values are compared with equals.
+     */
+    private record Key(UUID projectUuid, String name, String content, List<String> arguments,
+                       List<Object> contextValues) {
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.qubership.atp.macros.core.exception.MacrosCompilationException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.AbstractContext;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Java implementations of the built-in global date, random and string macros. They are used for global macros,
+ * which have no project, and give the results of their scripts; any other macros and every argument the
+ * implementation is not sure about, like a malformed date, go to the fallback calculator, so errors are reported
+ * exactly as the script reports them.
+ */
+@RequiredArgsConstructor
+public class NativeMacrosCalculator implements MacrosCalculator {
+    private static final Map<String, NativeMacro> MACROS = new HashMap<>();
+    private static final Pattern INT_PREFIX = Pattern.compile("\\s*([+-]?\\d{1,15})(?!\\d)");
+    private static final Pattern COUNT = Pattern.compile("\\d{1,6}");
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String LOWER_LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    static {
+        MACROS.put("DATE", NativeMacrosCalculator::date);
+        MACROS.put("GET_DAY", args -> get(args, Calendar.DAY_OF_MONTH, 0));
+        MACROS.put("GET_HOUR", args -> get(args, Calendar.HOUR_OF_DAY, 0));
+        MACROS.put("GET_MIN", args -> get(args, Calendar.MINUTE, 0));
+        MACROS.put("GET_MONTH", args -> get(args, Calendar.MONTH, 1));
+        MACROS.put("GET_SEC", args -> get(args, Calendar.SECOND, 0));
+        MACROS.put("GET_YEAR", args -> get(args, Calendar.YEAR, 0));
+        MACROS.put("SHIFT_DAY", args -> shift(args, Calendar.DAY_OF_MONTH));
+        MACROS.put("SHIFT_HOUR", args -> shift(args, Calendar.HOUR));
+        MACROS.put("SHIFT_MIN", args -> shift(args, Calendar.MINUTE));
+        MACROS.put("SHIFT_MONTH", args -> shift(args, Calendar.MONTH));
+        MACROS.put("SHIFT_SEC", args -> shift(args, Calendar.SECOND));
+        MACROS.put("SHIFT_YEAR", args -> shift(args, Calendar.YEAR));
+        MACROS.put("RAND", NativeMacrosCalculator::rand);
+        MACROS.put("RANDBETWEEN", NativeMacrosCalculator::randBetween);
+        MACROS.put("UUID", args -> UUID.randomUUID().toString());
+        MACROS.put("RAND_UUID", args -> UUID.randomUUID().toString());
+        MACROS.put("RANDOM", NativeMacrosCalculator::random);
+        MACROS.put("CHARS", NativeMacrosCalculator::chars);
+    }
+
+    private final MacrosCalculator fallback;
+
+    @Nullable
+    @Override
+    public String calculate(@Nonnull Macros macros, @Nullable List<String> arguments,
+                            @Nonnull AbstractContext context) {
+        return calculateOutcome(macros, arguments, context).result();
+    }
+
+    @Nonnull
+    @Override
+    public Outcome calculateOutcome(@Nonnull Macros macros, @Nullable List<String> arguments,
+                                    @Nonnull AbstractContext context) {
+        NativeMacro nativeMacro = isNative(macros) ? MACROS.get(macros.getName()) : null;
+        if (nativeMacro != null) {
+            try {
+                return Outcome.success(nativeMacro.calculate(ScriptMacrosCalculator.compileArguments(macros,
+                        arguments)));
+            } catch (Exception e) {
+                return fallback.calculateOutcome(macros, arguments, context);
+            }
+        }
+        return fallback.calculateOutcome(macros, arguments, context);
+    }
+
+    @Nonnull
+    @Override
+    public Batch openBatch() {
+        return fallback.openBatch();
+    }
+
+    /**
+     * Warm up the macros without Java implementations. Scripts of the macros with them are compiled on their first
+     * call with arguments the implementation leaves to the fallback.
+     */
+    @Nonnull
+    @Override
+    public CompletableFuture<Map<String, MacrosCompilationException>> warmUp(@Nonnull Collection<Macros> macros,
+                                                                            @Nonnull Executor executor) {
+        return fallback.warmUp(macros.stream().filter(macro -> !isNative(macro)).toList(), executor);
+    }
+
+    @Override
+    public void invalidate(@Nonnull Collection<Macros> macros) {
+        fallback.invalidate(macros);
+    }
+
+    @Override
+    public void close() {
+        fallback.close();
+    }
+
+    /**
+     * Check whether a global macros has a Java implementation.
+     *
+     * @param name macros name
+     * @return true if calls of the global macros are calculated without the fallback
+     */
+    public static boolean isNative(@Nonnull String name) {
+        return MACROS.containsKey(name);
+    }
+
+    private static boolean isNative(@Nonnull Macros macros) {
+        return macros.getProjectUuid() == null && macros.getName() != null && isNative(macros.getName());
+    }
+
+    private static String date(List<String> args) {
+        String format = argument(args, 0);
+        String timeZone = argument(args, 1);
+        Date date = new Date();
+        if (format.equals("millis")) {
+            return String.valueOf(date.getTime());
+        }
+        SimpleDateFormat print = new SimpleDateFormat(format);
+        if (timeZone != null) {
+            print.setTimeZone(TimeZone.getTimeZone(timeZone));
+        }
+        return print.format(date);
+    }
+
+    private static String get(List<String> args, int field, int offset) throws Exception {
+        String date = argument(args, 0);
+        String format = argument(args, 1);
+        String timeZone = argument(args, 2);
+        Calendar calendar = Calendar.getInstance();
+        if (timeZone != null) {
+            calendar.setTimeZone(TimeZone.getTimeZone(timeZone));
+        }
+        if (format.equals("millis")) {
+            calendar.setTimeInMillis(Long.parseLong(date));
+        } else {
+            calendar.setTimeInMillis(new SimpleDateFormat(format).parse(date).getTime());
+        }
+        return String.valueOf(calendar.get(field) + offset);
+    }
+
+    private static String shift(List<String> args, int field) throws Exception {
+        String value = argument(args, 0);
+        String date = argument(args, 1);
+        String format = argument(args, 2);
+        Calendar calendar = Calendar.getInstance();
+        if (format.equals("millis")) {
+            calendar.setTimeInMillis(Long.parseLong(date));
+            calendar.set(field, calendar.get(field) + Integer.parseInt(value));
+            return String.valueOf(calendar.getTimeInMillis());
+        }
+        SimpleDateFormat sdf = new SimpleDateFormat(format);
+        calendar.setTimeInMillis(sdf.parse(date).getTime());
+        calendar.set(field, calendar.get(field) + Integer.parseInt(value));
+        return sdf.format(calendar.getTime());
+    }
+
+    private static String rand(List<String> args) {
+        long digit = Math.abs(parseIntPrefix(argument(args, 0)));
+        if (digit < 1 || digit > 15) {
+            throw new IllegalArgumentException("Unsupported number of digits " + digit);
+        }
+        long min = (long) Math.pow(10, digit - 1);
+        long max = (long) Math.pow(10, digit) - 1;
+        return String.valueOf(randomBetween(min, max));
+    }
+
+    private static String randBetween(List<String> args) {
+        long min = parseIntPrefix(argument(args, 0));
+        long max = parseIntPrefix(argument(args, 1));
+        return String.valueOf(max < min ? randomBetween(max, min) : randomBetween(min, max));
+    }
+
+    private static String random(List<String> args) {
+        String random = argument(args, 0);
+        StringBuilder result = new StringBuilder(random.length());
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        for (int i = 0; i < random.length(); i++) {
+            char item = random.charAt(i);
+            if (item == '$') {
+                result.append(1 + generator.nextInt(9));
+            } else if (item == '&') {
+                result.append(LETTERS.charAt(generator.nextInt(LETTERS.length())));
+            } else {
+                result.append(item);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Like the script, picks letters by an index below the count, so only the first count letters appear and
+     * an index past the alphabet adds nothing.
+     */
+    private static String chars(List<String> args) {
+        String count = argument(args, 0);
+        if (!COUNT.matcher(count).matches()) {
+            throw new IllegalArgumentException("Unsupported count " + count);
+        }
+        int length = Integer.parseInt(count);
+        StringBuilder result = new StringBuilder(length);
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        for (int i = 0; i < length; i++) {
+            int index = (int) Math.floor(generator.nextDouble() * length);
+            if (index < LOWER_LETTERS.length()) {
+                result.append(LOWER_LETTERS.charAt(index));
+            }
+        }
+        return result.toString();
+    }
+
+    private static long randomBetween(long min, long max) {
+        return (long) Math.floor(ThreadLocalRandom.current().nextDouble() * (max - min + 1)) + min;
+    }
+
+    /**
+     * Integer prefix of a string as the script {@code parseInt} reads it; hexadecimal and non-numeric strings
+     * are left to the script.
+     */
+    private static long parseIntPrefix(String value) {
+        Matcher matcher = INT_PREFIX.matcher(value);
+        if (!matcher.lookingAt() || value.regionMatches(true, matcher.end(1) - 1, "0x", 0, 2)) {
+            throw new IllegalArgumentException("Unsupported integer " + value);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static String argument(List<String> args, int index) {
+        return index < args.size() ? args.get(index) : null;
+    }
+
+    @FunctionalInterface
+    private interface NativeMacro {
+        String calculate(List<String> args) throws Exception;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Error log which writes errors of one key at most once per interval. The errors in between are counted and
+ * reported with the next written one, so a macros failing on every call gives one line per interval.
+ */
+final class RateLimitedLog {
+    private static final long MAX_KEYS = 10_000;
+
+    private final Logger log;
+    private final long intervalNanos;
+    private final LongSupplier nanoTime;
+    private final Cache<String, Entry> entries = CacheBuilder.newBuilder()
+            .maximumSize(MAX_KEYS)
+            .build();
+
+    RateLimitedLog(@Nonnull Logger log, @Nonnull Duration interval) {
+        this(log, interval, System::nanoTime);
+    }
+
+    RateLimitedLog(@Nonnull Logger log, @Nonnull Duration interval, @Nonnull LongSupplier nanoTime) {
+        this.log = log;
+        this.intervalNanos = interval.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Log an error unless an error of the key was logged less than the interval ago.
+     *
+     * @param key     key of similar errors
+     * @param message message
+     * @param error   cause to log with its stack trace
+     */
+    void error(@Nonnull String key, @Nonnull String message, @Nullable Throwable error) {
+        Entry entry = entries.asMap().computeIfAbsent(key, ignored -> new Entry());
+        long now = nanoTime.getAsLong();
+        long suppressed;
+        synchronized (entry) {
+            if (entry.logged && now - entry.loggedAt < intervalNanos) {
+                entry.suppressed++;
+                return;
+            }
+            suppressed = entry.suppressed;
+            entry.suppressed = 0;
+            entry.loggedAt = now;
+            entry.logged = true;
+        }
+        if (suppressed == 0) {
+            log.error(message, error);
+        } else {
+            log.error("{} ({} similar errors suppressed)", message, suppressed, error);
+        }
+    }
+
+    private static final class Entry {
+        private boolean logged;
+        private long loggedAt;
+        private long suppressed;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.script.ScriptEngine;
+
+import org.openjdk.nashorn.api.scripting.NashornException;
+import org.openjdk.nashorn.api.tree.AssignmentTree;
+import org.openjdk.nashorn.api.tree.CatchTree;
+import org.openjdk.nashorn.api.tree.CompilationUnitTree;
+import org.openjdk.nashorn.api.tree.CompoundAssignmentTree;
+import org.openjdk.nashorn.api.tree.EmptyStatementTree;
+import org.openjdk.nashorn.api.tree.ExpressionTree;
+import org.openjdk.nashorn.api.tree.ForInLoopTree;
+import org.openjdk.nashorn.api.tree.FunctionDeclarationTree;
+import org.openjdk.nashorn.api.tree.FunctionExpressionTree;
+import org.openjdk.nashorn.api.tree.IdentifierTree;
+import org.openjdk.nashorn.api.tree.Parser;
+import org.openjdk.nashorn.api.tree.SimpleTreeVisitorES5_1;
+import org.openjdk.nashorn.api.tree.Tree;
+import org.openjdk.nashorn.api.tree.UnaryTree;
+import org.openjdk.nashorn.api.tree.VariableTree;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Finds JavaScript scripts whose top level only declares functions and whose functions only assign their own
+ * variables. Evaluating such a script again just defines the same functions, and a call leaves nothing behind for
+ * the next one, so it can be evaluated once per engine and its {@code main} invoked on every call. Scripts of other
+ * languages, scripts with top level statements, like a calendar created when the script is evaluated, and functions
+ * which assign globals (an undeclared {@code x = 1}) or properties, or delete them, are evaluated on every call.
+ */
+final class ScriptDeclarations {
+
+    private ScriptDeclarations() {
+    }
+
+    static boolean isDeclarationsOnly(@Nonnull ScriptEngine engine, @Nonnull String content) {
+        if (!"ECMAScript".equalsIgnoreCase(engine.getFactory().getLanguageName())) {
+            return false;
+        }
+        CompilationUnitTree unit;
+        try {
+            unit = Parser.create().parse("macros", content, diagnostic -> {
+            });
+        } catch (NashornException e) {
+            return false;
+        }
+        if (unit == null) {
+            return false;
+        }
+        for (Tree element : unit.getSourceElements()) {
+            if (!(element instanceof FunctionDeclarationTree) && !(element instanceof EmptyStatementTree)) {
+                return false;
+            }
+        }
+        SharedStateFinder finder = new SharedStateFinder();
+        unit.accept(finder, null);
+        return !finder.found;
+    }
+
+    /**
+     * Finds assignments of anything but variables and parameters of the enclosing functions.
+     */
+    private static final class SharedStateFinder extends SimpleTreeVisitorES5_1<Void, Void> {
+        private final Deque<Set<String>> scopes = new ArrayDeque<>();
+        private boolean found;
+
+        @Override
+        public Void visitFunctionDeclaration(FunctionDeclarationTree node, Void unused) {
+            return visitFunction(node.getName(), node.getParameters(), node.getBody());
+        }
+
+        @Override
+        public Void visitFunctionExpression(FunctionExpressionTree node, Void unused) {
+            return visitFunction(node.getName(), node.getParameters(), node.getBody());
+        }
+
+        @Override
+        public Void visitAssignment(AssignmentTree node, Void unused) {
+            checkTarget(node.getVariable());
+            return super.visitAssignment(node, unused);
+        }
+
+        @Override
+        public Void visitCompoundAssignment(CompoundAssignmentTree node, Void unused) {
+            checkTarget(node.getVariable());
+            return super.visitCompoundAssignment(node, unused);
+        }
+
+        @Override
+        public Void visitUnary(UnaryTree node, Void unused) {
+            switch (node.getKind()) {
+                case PREFIX_INCREMENT, POSTFIX_INCREMENT, PREFIX_DECREMENT, POSTFIX_DECREMENT ->
+                        checkTarget(node.getExpression());
+                case DELETE -> found = true;
+                default -> {
+                }
+            }
+            return super.visitUnary(node, unused);
+        }
+
+        @Override
+        public Void visitForInLoop(ForInLoopTree node, Void unused) {
+            checkTarget(node.getVariable());
+            return super.visitForInLoop(node, unused);
+        }
+
+        @Override
+        public Void visitCatch(CatchTree node, Void unused) {
+            if (node.getParameter() instanceof IdentifierTree parameter && !scopes.isEmpty()) {
+                scopes.peek().add(parameter.getName());
+            }
+            return super.visitCatch(node, unused);
+        }
+
+        private Void visitFunction(IdentifierTree name, List<? extends ExpressionTree> parameters, Tree body) {
+            Set<String> scope = new HashSet<>();
+            if (name != null) {
+                scope.add(name.getName());
+            }
+            for (ExpressionTree parameter : parameters) {
+                if (parameter instanceof IdentifierTree identifier) {
+                    scope.add(identifier.getName());
+                }
+            }
+            body.accept(new DeclarationCollector(), scope);
+            scopes.push(scope);
+            body.accept(this, null);
+            scopes.pop();
+            return null;
+        }
+
+        private void checkTarget(ExpressionTree target) {
+            if (!(target instanceof IdentifierTree identifier)
+                    || scopes.stream().noneMatch(scope -> scope.contains(identifier.getName()))) {
+                found = true;
+            }
+        }
+    }
+
+    /**
+     * Collects variables and functions declared by a function body, without the ones of nested functions.
+     */
+    private static final class DeclarationCollector extends SimpleTreeVisitorES5_1<Void, Set<String>> {
+
+        @Override
+        public Void visitVariable(VariableTree node, Set<String> scope) {
+            if (node.getBinding() instanceof IdentifierTree identifier) {
+                scope.add(identifier.getName());
+            }
+            return super.visitVariable(node, scope);
+        }
+
+        @Override
+        public Void visitFunctionDeclaration(FunctionDeclarationTree node, Set<String> scope) {
+            scope.add(node.getName().getName());
+            return null;
+        }
+
+        @Override
+        public Void visitFunctionExpression(FunctionExpressionTree node, Set<String> scope) {
+            return null;
+        }
+    }
+}
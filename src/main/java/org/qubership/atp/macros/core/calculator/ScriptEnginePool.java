@@ -0,0 +1,225 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+
+/**
+ * Bounded pools of ready script engines by engine name. An engine is checked out for one call and returned
+ * after it, so it is used by one thread at a time; when all engines of a pool are checked out the caller waits
+ * for one to be returned instead of creating a new engine.
+ */
+public class ScriptEnginePool {
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final LongAdder creations = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final ScriptEngineManager scriptEngineManager;
+    private final Consumer<ScriptEngine> initializer;
+    @Getter
+    private final int size;
+
+    /**
+     * Constructor with pools of one engine per available processor.
+     *
+     * @param scriptEngineManager manager which creates engines
+     */
+    public ScriptEnginePool(@Nonnull ScriptEngineManager scriptEngineManager) {
+        this(scriptEngineManager, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param scriptEngineManager manager which creates engines
+     * @param size                maximal number of engines by engine name
+     */
+    public ScriptEnginePool(@Nonnull ScriptEngineManager scriptEngineManager, int size) {
+        this(scriptEngineManager, size, engine -> {
+        });
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param scriptEngineManager manager which creates engines
+     * @param size                maximal number of engines by engine name
+     * @param initializer         set up of each created engine before it is checked out
+     */
+    public ScriptEnginePool(@Nonnull ScriptEngineManager scriptEngineManager, int size,
+                            @Nonnull Consumer<ScriptEngine> initializer) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size should be positive, but was " + size);
+        }
+        this.scriptEngineManager = scriptEngineManager;
+        this.size = size;
+        this.initializer = initializer;
+    }
+
+    /**
+     * Check out an engine, creating it while the pool is not full.
+     *
+     * @param engineName engine name
+     * @return engine to return with {@link #release(String, ScriptEngine)} or null if there is no such engine
+     */
+    @Nullable
+    public ScriptEngine acquire(@Nonnull String engineName) {
+        Pool pool = pools.computeIfAbsent(engineName, name -> new Pool(size));
+        ScriptEngine engine = pool.idle.poll();
+        if (engine != null) {
+            return engine;
+        }
+        if (pool.created.getAndIncrement() < size) {
+            engine = create(engineName);
+            if (engine == null) {
+                pool.created.decrementAndGet();
+            }
+            return engine;
+        }
+        pool.created.decrementAndGet();
+        waits.increment();
+        try {
+            return pool.idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for %s engine".formatted(engineName), e);
+        }
+    }
+
+    /**
+     * Return a checked out engine to its pool.
+     *
+     * @param engineName engine name
+     * @param engine     engine
+     */
+    public void release(@Nonnull String engineName, @Nonnull ScriptEngine engine) {
+        pools.get(engineName).idle.offer(engine);
+    }
+
+    /**
+     * Replace a checked out engine which can not be returned, like an engine still running a script which timed out,
+     * with a new one, so the pool does not shrink.
+     *
+     * @param engineName engine name
+     */
+    public void discard(@Nonnull String engineName) {
+        Pool pool = pools.get(engineName);
+        ScriptEngine engine = create(engineName);
+        if (engine == null) {
+            pool.created.decrementAndGet();
+        } else {
+            pool.idle.offer(engine);
+        }
+    }
+
+    /**
+     * Fill the pool of an engine name up to its size, so the first calls do not create engines.
+     *
+     * @param engineName engine name
+     * @param count      number of engines to have ready, not more than the size
+     */
+    public void warmUp(@Nonnull String engineName, int count) {
+        Pool pool = pools.computeIfAbsent(engineName, name -> new Pool(size));
+        while (pool.created.get() < Math.min(count, size)) {
+            if (pool.created.getAndIncrement() >= size) {
+                pool.created.decrementAndGet();
+                return;
+            }
+            ScriptEngine engine = create(engineName);
+            if (engine == null) {
+                pool.created.decrementAndGet();
+                return;
+            }
+            pool.idle.offer(engine);
+        }
+    }
+
+    /**
+     * Create an engine outside of the pool, prepare it and add it to the pool if the pool is still not full, so calls
+     * do not wait for the preparation: they create or check out other engines meanwhile.
+     *
+     * @param engineName  engine name
+     * @param preparation work to do with the engine before it is added
+     * @return true if a prepared engine was added, false if the pool is full or there is no such engine
+     */
+    public boolean warmUp(@Nonnull String engineName, @Nonnull Consumer<ScriptEngine> preparation) {
+        Pool pool = pools.computeIfAbsent(engineName, name -> new Pool(size));
+        if (pool.created.get() >= size) {
+            return false;
+        }
+        ScriptEngine engine = create(engineName);
+        if (engine == null) {
+            return false;
+        }
+        preparation.accept(engine);
+        if (pool.created.getAndIncrement() >= size) {
+            pool.created.decrementAndGet();
+            return false;
+        }
+        pool.idle.offer(engine);
+        return true;
+    }
+
+    /**
+     * Number of engines created by all pools.
+     *
+     * @return count
+     */
+    public long getCreationsCount() {
+        return creations.sum();
+    }
+
+    /**
+     * Number of check outs which waited for an engine to be returned.
+     *
+     * @return count
+     */
+    public long getWaitsCount() {
+        return waits.sum();
+    }
+
+    @Nullable
+    private ScriptEngine create(@Nonnull String engineName) {
+        ScriptEngine engine = scriptEngineManager.getEngineByName(engineName);
+        if (engine != null) {
+            initializer.accept(engine);
+            creations.increment();
+        }
+        return engine;
+    }
+
+    private static final class Pool {
+        private final BlockingQueue<ScriptEngine> idle;
+        private final AtomicInteger created = new AtomicInteger();
+
+        private Pool(int size) {
+            idle = new ArrayBlockingQueue<>(size);
+        }
+    }
+}
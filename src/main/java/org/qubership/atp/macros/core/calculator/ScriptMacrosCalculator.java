@@ -16,10 +16,28 @@
 
 package org.qubership.atp.macros.core.calculator;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.script.Bindings;
 import javax.script.Compilable;
@@ -37,48 +55,422 @@ import org.qubership.atp.macros.core.model.Macros;
 import org.qubership.atp.macros.core.model.MacrosParameter;
 import org.qubership.atp.macros.core.processor.AbstractContext;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
-import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-@RequiredArgsConstructor
 public class ScriptMacrosCalculator implements MacrosCalculator {
-    private final Map<String, CompiledScript> compiledScripts = new HashMap<>();
-    private final ScriptEngineManager scriptEngineManager;
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int ABANDONED = 3;
+    private static final int CANCELLED = 4;
+
+    private final Cache<CompiledScript, Optional<Bindings>> functionBindings = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+    private final ThreadLocal<Map<CompiledScript, Bindings>> batchBindings = new ThreadLocal<>();
+    private final ScriptEnginePool enginePool;
+    private final CompiledScriptCache compiledScripts;
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> abandonedRuns = new ConcurrentHashMap<>();
+    private final Map<List<Object>, AtomicInteger> abandonedMacros = new ConcurrentHashMap<>();
+    private final LongAdder timeoutsCount = new LongAdder();
+    /**
+     * Execution time budgets, null for calculations without a limit on the calling thread.
+     */
+    @Nullable
+    @Setter
+    private volatile MacrosTimeouts macrosTimeouts;
+    /**
+     * Breaker of macros which fail again and again, null to calculate every call.
+     */
+    @Nullable
+    @Setter
+    private volatile MacrosCircuitBreaker circuitBreaker;
+    private final RateLimitedLog errorLog = new RateLimitedLog(log, Duration.ofMinutes(1));
+
+    /**
+     * Constructor with pools of one engine per available processor.
+     *
+     * @param scriptEngineManager manager which creates engines
+     */
+    public ScriptMacrosCalculator(@Nonnull ScriptEngineManager scriptEngineManager) {
+        this(new ScriptEnginePool(scriptEngineManager));
+    }
+
+    /**
+     * Constructor with a compiled script cache of default size.
+     *
+     * @param enginePool pool of engines
+     */
+    public ScriptMacrosCalculator(@Nonnull ScriptEnginePool enginePool) {
+        this(enginePool, new CompiledScriptCache());
+    }
+
+    /**
+     * Constructor. Calculations with a budget run on a pool of threads by engine name: one for each engine of the
+     * engine pool and one for each run which exceeded its budget and still holds a thread.
+     *
+     * @param enginePool      pool of engines
+     * @param compiledScripts cache of compiled scripts
+     */
+    public ScriptMacrosCalculator(@Nonnull ScriptEnginePool enginePool, @Nonnull CompiledScriptCache compiledScripts) {
+        this.enginePool = enginePool;
+        this.compiledScripts = compiledScripts;
+    }
 
     @Nullable
     @Override
     public String calculate(@Nonnull Macros macros,
                             @Nullable List<String> arguments,
                             @Nonnull AbstractContext context) {
-        ScriptEngine engine = scriptEngineManager.getEngineByName(macros.getEngine());
+        return calculateOutcome(macros, arguments, context).result();
+    }
+
+    /**
+     * Calculate the macros, errors of the script, time budget and circuit breaker are failures.
+     */
+    @Nonnull
+    @Override
+    public Outcome calculateOutcome(@Nonnull Macros macros,
+                                    @Nullable List<String> arguments,
+                                    @Nonnull AbstractContext context) {
+        MacrosCircuitBreaker breaker = circuitBreaker;
+        String error = breaker == null ? null : breaker.check(macros);
+        if (error != null) {
+            return Outcome.failure(error);
+        }
+        String engineName = getEngineName(macros);
+        MacrosTimeouts timeouts = macrosTimeouts;
+        Duration timeout = timeouts == null ? null : timeouts.getTimeout(macros);
+        AtomicInteger abandonedRunsOfMacros = abandonedMacros.get(abandonedKey(macros));
+        if (timeout != null && abandonedRunsOfMacros != null && abandonedRunsOfMacros.get() > 0) {
+            String message = "Error during evaluation of %s macros: its run which exceeded the time is still running"
+                    .formatted(macros.getName());
+            errorLog.error(macros.getProjectId() + ":" + macros.getName(), message, null);
+            return Outcome.failure(message);
+        }
+        ScriptEngine engine = enginePool.acquire(engineName);
+        if (engine == null) {
+            return Outcome.success(null);
+        }
+        if (timeout != null) {
+            return calculateWithTimeout(engineName, engine, macros, arguments, context, timeout);
+        }
+        try {
+            return calculate(engine, macros, arguments, context, batchBindings.get());
+        } finally {
+            enginePool.release(engineName, engine);
+        }
+    }
+
+    /**
+     * Calculate on the executor of the engine name and wait for the result at most the budget from the start of the
+     * run. The run gets bindings of its own, so a run which is left behind does not change bindings of the caller.
+     * A script can not be stopped, so the engine of a script which timed out is left to it and replaced in the pool
+     * with a new engine, the breaker of the macros is opened, and the calls of the macros fail without a run until
+     * the run ends.
+     */
+    @Nonnull
+    private Outcome calculateWithTimeout(@Nonnull String engineName, @Nonnull ScriptEngine engine,
+                                         @Nonnull Macros macros, @Nullable List<String> arguments,
+                                         @Nonnull AbstractContext context, @Nonnull Duration timeout) {
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        CompletableFuture<Outcome> result = new CompletableFuture<>();
+        try {
+            getExecutor(engineName).execute(() -> {
+                if (!state.compareAndSet(QUEUED, RUNNING)) {
+                    return;
+                }
+                started.complete(null);
+                try {
+                    result.complete(calculate(engine, macros, arguments, context, null));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    if (!state.compareAndSet(RUNNING, DONE)) {
+                        endAbandoned(engineName, macros);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            enginePool.release(engineName, engine);
+            throw e;
+        }
+        try {
+            started.get();
+            Outcome calculated = result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            enginePool.release(engineName, engine);
+            return calculated;
+        } catch (ExecutionException e) {
+            enginePool.release(engineName, engine);
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            abandon(engineName, engine, macros, state);
+            timeoutsCount.increment();
+            String message = "Error during evaluation of %s macros: execution time exceeded %d ms".formatted(
+                    macros.getName(), timeout.toMillis());
+            errorLog.error(macros.getProjectId() + ":" + macros.getName(), message, null);
+            MacrosCircuitBreaker breaker = circuitBreaker;
+            if (breaker != null) {
+                breaker.open(macros, message);
+            }
+            return Outcome.failure(message);
+        } catch (InterruptedException e) {
+            if (state.compareAndSet(QUEUED, CANCELLED)) {
+                enginePool.release(engineName, engine);
+            } else {
+                abandon(engineName, engine, macros, state);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calculating %s macros".formatted(macros.getName()), e);
+        }
+    }
+
+    /**
+     * Leave the engine to a run which is still going on and replace it in the pool, the executor gets a thread
+     * instead of the one the run holds. A run which ended meanwhile returns its engine to the pool.
+     */
+    private void abandon(@Nonnull String engineName, @Nonnull ScriptEngine engine, @Nonnull Macros macros,
+                         @Nonnull AtomicInteger state) {
+        AtomicInteger abandoned = getAbandonedRuns(engineName);
+        AtomicInteger abandonedOfMacros = abandonedMacros.computeIfAbsent(abandonedKey(macros),
+                key -> new AtomicInteger());
+        abandoned.incrementAndGet();
+        abandonedOfMacros.incrementAndGet();
+        resize(engineName, 1);
+        if (!state.compareAndSet(RUNNING, ABANDONED)) {
+            endAbandoned(engineName, macros);
+            enginePool.release(engineName, engine);
+            return;
+        }
+        compiledScripts.invalidate(engine);
+        enginePool.discard(engineName);
+    }
+
+    private void endAbandoned(@Nonnull String engineName, @Nonnull Macros macros) {
+        getAbandonedRuns(engineName).decrementAndGet();
+        AtomicInteger abandonedOfMacros = abandonedMacros.get(abandonedKey(macros));
+        if (abandonedOfMacros != null && abandonedOfMacros.decrementAndGet() <= 0) {
+            abandonedMacros.remove(abandonedKey(macros), abandonedOfMacros);
+        }
+        resize(engineName, -1);
+    }
+
+    @Nonnull
+    private static List<Object> abandonedKey(@Nonnull Macros macros) {
+        return Arrays.asList(macros.getProjectUuid(), macros.getName(), macros.getContent());
+    }
+
+    @Nonnull
+    private AtomicInteger getAbandonedRuns(@Nonnull String engineName) {
+        return abandonedRuns.computeIfAbsent(engineName, name -> new AtomicInteger());
+    }
+
+    @Nonnull
+    private ThreadPoolExecutor getExecutor(@Nonnull String engineName) {
+        return executors.computeIfAbsent(engineName, name -> {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(enginePool.getSize(), enginePool.getSize(), 1,
+                    TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "macros-script-" + name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    private void resize(@Nonnull String engineName, int delta) {
+        ThreadPoolExecutor executor = getExecutor(engineName);
+        synchronized (executor) {
+            int size = executor.getMaximumPoolSize() + delta;
+            if (delta > 0) {
+                executor.setMaximumPoolSize(size);
+                executor.setCorePoolSize(size);
+            } else {
+                executor.setCorePoolSize(size);
+                executor.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    @Nonnull
+    private Outcome calculate(@Nonnull ScriptEngine engine, @Nonnull Macros macros, @Nullable List<String> arguments,
+                              @Nonnull AbstractContext context, @Nullable Map<CompiledScript, Bindings> batch) {
         if (engine instanceof Invocable) {
             try {
                 CompiledScript compiledScript = compile(engine, macros);
-                Bindings bindings = compiledScript.getEngine().createBindings();
+                Bindings bindings = getFunctionBindings(compiledScript, macros.getContent());
+                boolean evaluated = bindings != null;
+                if (!evaluated) {
+                    bindings = getBindings(compiledScript, batch);
+                }
                 List<String> compiledArguments = compileArguments(macros, arguments);
                 bindings.put("args", compiledArguments);
                 if (context.getContextParameters() != null) {
                     bindings.put("contextMap", context.getContextParameters());
+                } else {
+                    bindings.remove("contextMap");
+                }
+                if (!evaluated) {
+                    evaluate(compiledScript, bindings);
                 }
-                SimpleScriptContext scriptCtx = new SimpleScriptContext();
-                scriptCtx.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
-                compiledScript.eval(scriptCtx);
-                return ((Invocable) compiledScript.getEngine()).invokeMethod(
-                        bindings, "main", compiledArguments.toArray()).toString();
+                String result = invokeMain(compiledScript, bindings, compiledArguments.toArray()).toString();
+                MacrosCircuitBreaker breaker = circuitBreaker;
+                if (breaker != null) {
+                    breaker.recordSuccess(macros);
+                }
+                return Outcome.success(result);
             } catch (MacrosCompilationException | NoSuchMethodException | ScriptException e) {
-                final String message = "Error during evaluation of %s macros: %s".formatted(macros.getName(),
-                        e.getMessage());
-                log.error(message, e);
-                return message;
+                return fail(macros, "Error during evaluation of %s macros: %s".formatted(macros.getName(),
+                        e.getMessage()), e);
+            }
+        }
+        return Outcome.success(null);
+    }
+
+    /**
+     * Log a failed calculation, at most once a minute for a macros, and count it in the circuit breaker.
+     *
+     * @return failure with the error message
+     */
+    @Nonnull
+    private Outcome fail(@Nonnull Macros macros, @Nonnull String message, @Nullable Throwable error) {
+        errorLog.error(macros.getProjectId() + ":" + macros.getName(), message, error);
+        MacrosCircuitBreaker breaker = circuitBreaker;
+        if (breaker != null) {
+            breaker.recordFailure(macros, message);
+        }
+        return Outcome.failure(message);
+    }
+
+    /**
+     * Name of the engine which calculates the macros.
+     *
+     * @param macros macros
+     * @return engine name to check out from the pool
+     */
+    protected String getEngineName(@Nonnull Macros macros) {
+        return macros.getEngine();
+    }
+
+    /**
+     * Create bindings in which a script of the engine is evaluated.
+     *
+     * @param engine engine of the script
+     * @return new bindings
+     */
+    @Nonnull
+    protected Bindings createBindings(@Nonnull ScriptEngine engine) {
+        return engine.createBindings();
+    }
+
+    /**
+     * Bindings for one call of a script with top level statements outside of a batch.
+     *
+     * @param compiledScript script
+     * @return new bindings
+     */
+    @Nonnull
+    protected Bindings getCallBindings(@Nonnull CompiledScript compiledScript) {
+        return createBindings(compiledScript.getEngine());
+    }
+
+    /**
+     * Invoke {@code main} function of a script evaluated in the bindings.
+     *
+     * @param compiledScript script
+     * @param bindings       bindings in which the script was evaluated
+     * @param arguments      arguments of the function
+     * @return result of the function
+     */
+    protected Object invokeMain(@Nonnull CompiledScript compiledScript, @Nonnull Bindings bindings,
+                                @Nonnull Object[] arguments) throws ScriptException, NoSuchMethodException {
+        return ((Invocable) compiledScript.getEngine()).invokeMethod(bindings, "main", arguments);
+    }
+
+    /**
+     * Open a batch in which each script creates its bindings once. Scripts with top level statements are still
+     * evaluated on every call, so their top level state is set up again before {@code main} is invoked.
+     *
+     * @return batch to close when the evaluations of the batch are done
+     */
+    @Nonnull
+    @Override
+    public Batch openBatch() {
+        if (batchBindings.get() != null) {
+            return () -> {
+            };
+        }
+        batchBindings.set(new IdentityHashMap<>());
+        return batchBindings::remove;
+    }
+
+    /**
+     * Whether a script is evaluated once per engine and its {@code main} invoked on every call, in the same bindings.
+     * By default, scripts which only declare functions and whose functions only assign their own variables, so a
+     * call leaves nothing behind for the next calls of the macros and for other projects with the same content.
+     *
+     * @param engine  engine of the script
+     * @param content script content
+     * @return true to share the bindings between calls
+     */
+    protected boolean isEvaluatedOnce(@Nonnull ScriptEngine engine, @Nonnull String content) {
+        return ScriptDeclarations.isDeclarationsOnly(engine, content);
+    }
+
+    /**
+     * Bindings in which a script {@link #isEvaluatedOnce evaluated once} was evaluated, its {@code main} is invoked
+     * directly. The bindings belong to the engine of the script, which is checked out by the caller.
+     *
+     * @return bindings or null if the script has to be evaluated on every call
+     */
+    @Nullable
+    private Bindings getFunctionBindings(@Nonnull CompiledScript compiledScript, @Nonnull String content)
+            throws ScriptException {
+        Optional<Bindings> bindings = functionBindings.getIfPresent(compiledScript);
+        if (bindings == null) {
+            bindings = Optional.empty();
+            if (isEvaluatedOnce(compiledScript.getEngine(), content)) {
+                Bindings initialized = createBindings(compiledScript.getEngine());
+                evaluate(compiledScript, initialized);
+                bindings = Optional.of(initialized);
             }
+            functionBindings.put(compiledScript, bindings);
         }
-        return null;
+        return bindings.orElse(null);
     }
 
-    private List<String> compileArguments(@Nonnull Macros macros, @Nullable List<String> arguments) {
+    private static void evaluate(@Nonnull CompiledScript compiledScript, @Nonnull Bindings bindings)
+            throws ScriptException {
+        SimpleScriptContext scriptCtx = new SimpleScriptContext();
+        scriptCtx.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        compiledScript.eval(scriptCtx);
+    }
+
+    private Bindings getBindings(@Nonnull CompiledScript compiledScript,
+                                 @Nullable Map<CompiledScript, Bindings> bindings) {
+        if (bindings == null) {
+            return getCallBindings(compiledScript);
+        }
+        return bindings.computeIfAbsent(compiledScript, script -> createBindings(script.getEngine()));
+    }
+
+    /**
+     * Arguments of a macros call as its script gets them: missing mandatory arguments get default values,
+     * missing optional ones are omitted and escaped quotes are unescaped.
+     */
+    static List<String> compileArguments(@Nonnull Macros macros, @Nullable List<String> arguments) {
         List<String> compiledArguments = new ArrayList<>();
         List<MacrosParameter> parameters = macros.getParameters();
         for (int i = 0; i < parameters.size(); i++) {
@@ -92,31 +484,21 @@ public class ScriptMacrosCalculator implements MacrosCalculator {
         return compiledArguments;
     }
 
-    private String unEscapeQuoteInsideMacroArguments(String agr) {
+    private static String unEscapeQuoteInsideMacroArguments(String agr) {
         return StringUtils.replace(agr, "\\'", "'");
     }
 
     private @Nonnull
     CompiledScript compile(@Nonnull ScriptEngine engine, @Nonnull Macros macros) throws MacrosCompilationException {
-        if (engine instanceof Compilable compilable) {
+        if (engine instanceof Compilable) {
             try {
-                String key = macros.getName();
-                if (compiledScripts.containsKey(key)) {
-                    return compiledScripts.get(key);
-                }
-                CompiledScript compiledScript = compilable.compile(macros.getContent());
-                compiledScripts.put(macros.getName(), compiledScript);
-                return compiledScript;
+                return compiledScripts.get(engine, macros.getContent());
             } catch (ScriptException e) {
-                final String message = "Error during compilation of %s macros: %s".formatted(macros.getName(),
-                        e.getMessage());
-                log.error(message, e);
-                throw new MacrosCompilationException(message, e);
+                throw new MacrosCompilationException("Error during compilation of %s macros: %s".formatted(
+                        macros.getName(), e.getMessage()), e);
             }
         } else {
-            String message = "Engine %s is not compilable".formatted(macros.getEngine());
-            log.error(message);
-            throw new MacrosCompilationException(message);
+            throw new MacrosCompilationException("Engine %s is not compilable".formatted(macros.getEngine()));
         }
     }
 
@@ -129,11 +511,142 @@ public class ScriptMacrosCalculator implements MacrosCalculator {
      */
     public @Nullable
     CompiledScript compile(@Nonnull Macros macros) throws MacrosCompilationException {
-        ScriptEngine engine = scriptEngineManager.getEngineByName(macros.getEngine());
-        if (engine instanceof Invocable) {
-            return compile(engine, macros);
-        } else {
-            throw new MacrosCompilationException("Engine %s is not invocable".formatted(macros.getEngine()));
+        String engineName = getEngineName(macros);
+        ScriptEngine engine = enginePool.acquire(engineName);
+        try {
+            if (engine instanceof Invocable) {
+                return compile(engine, macros);
+            } else {
+                throw new MacrosCompilationException("Engine %s is not invocable".formatted(macros.getEngine()));
+            }
+        } finally {
+            if (engine != null) {
+                enginePool.release(engineName, engine);
+            }
+        }
+    }
+
+    /**
+     * Compile the macros with every engine of their pools, so no call compiles them later; scripts which only
+     * declare functions are also evaluated into the bindings their calls use. Each engine is warmed up on its own
+     * task: engines which are not created yet are prepared before they join the pool, engines created by calls are
+     * checked out one at a time, so calls do not wait for the warm-up of a whole pool.
+     *
+     * @param macros   macros
+     * @param executor executor to run the work on
+     * @return future of the failures by macros name
+     */
+    @Nonnull
+    @Override
+    public CompletableFuture<Map<String, MacrosCompilationException>> warmUp(@Nonnull Collection<Macros> macros,
+                                                                            @Nonnull Executor executor) {
+        Map<String, MacrosCompilationException> failures = new ConcurrentHashMap<>();
+        Map<String, List<Macros>> macrosByEngine = new HashMap<>();
+        for (Macros macro : macros) {
+            macrosByEngine.computeIfAbsent(getEngineName(macro), name -> new ArrayList<>()).add(macro);
+        }
+        List<CompletableFuture<?>> warmUps = new ArrayList<>();
+        macrosByEngine.forEach((engineName, engineMacros) -> {
+            for (int i = 0; i < enginePool.getSize(); i++) {
+                warmUps.add(CompletableFuture.runAsync(() -> warmUp(engineName, engineMacros, failures), executor));
+            }
+        });
+        return CompletableFuture.allOf(warmUps.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> new TreeMap<>(failures));
+    }
+
+    private void warmUp(@Nonnull String engineName, @Nonnull List<Macros> macros,
+                        @Nonnull Map<String, MacrosCompilationException> failures) {
+        List<ScriptEngine> prepared = new ArrayList<>(1);
+        if (enginePool.warmUp(engineName, engine -> {
+            prepared.add(engine);
+            warmUp(engine, macros, failures);
+        })) {
+            return;
+        }
+        prepared.forEach(compiledScripts::invalidate);
+        ScriptEngine engine = enginePool.acquire(engineName);
+        try {
+            warmUp(engine, macros, failures);
+        } finally {
+            if (engine != null) {
+                enginePool.release(engineName, engine);
+            }
+        }
+    }
+
+    private void warmUp(@Nullable ScriptEngine engine, @Nonnull List<Macros> macros,
+                        @Nonnull Map<String, MacrosCompilationException> failures) {
+        for (Macros macro : macros) {
+            if (!(engine instanceof Invocable)) {
+                failures.put(macro.getName(), new MacrosCompilationException(
+                        "Engine %s is not invocable".formatted(macro.getEngine())));
+                continue;
+            }
+            try {
+                getFunctionBindings(compile(engine, macro), macro.getContent());
+            } catch (MacrosCompilationException e) {
+                failures.put(macro.getName(), e);
+            } catch (ScriptException | RuntimeException e) {
+                failures.put(macro.getName(), new MacrosCompilationException(
+                        "Error during evaluation of %s macros: %s".formatted(macro.getName(), e.getMessage()), e));
+            }
         }
     }
+
+    /**
+     * Number of runs which exceeded their budget and are still running.
+     *
+     * @param engineName engine name
+     * @return count
+     */
+    public int getAbandonedRunsCount(@Nonnull String engineName) {
+        AtomicInteger abandoned = abandonedRuns.get(engineName);
+        return abandoned == null ? 0 : abandoned.get();
+    }
+
+    /**
+     * Number of calculations which exceeded their budget.
+     *
+     * @return count
+     */
+    public long getTimeoutsCount() {
+        return timeoutsCount.sum();
+    }
+
+    /**
+     * Stop the threads of calculations with a budget, runs which exceeded it are interrupted.
+     */
+    @Override
+    public void close() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    @Nonnull
+    public ScriptEnginePool getEnginePool() {
+        return enginePool;
+    }
+
+    /**
+     * Drop the compiled scripts of the macros, the function bindings of the scripts go away with them.
+     *
+     * @param macros previous versions of the macros
+     */
+    @Override
+    public void invalidate(@Nonnull Collection<Macros> macros) {
+        Set<String> contents = new HashSet<>();
+        for (Macros macro : macros) {
+            if (macro.getContent() != null) {
+                contents.add(macro.getContent());
+            }
+        }
+        if (!contents.isEmpty()) {
+            compiledScripts.invalidate(contents);
+        }
+    }
+
+    @Nonnull
+    public CompiledScriptCache getCompiledScripts() {
+        return compiledScripts;
+    }
 }
@@ -0,0 +1,142 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.qubership.atp.macros.core.exception.ThrowingErrorListener;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosLexer;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Parses input strings with the generated ANTLR lexer and parser. Lexer and parser instances are mutable,
+ * so each thread gets its own pair which is kept warm for the next calls of the thread. Parsing never calls
+ * back into evaluation, so nested evaluations started while visiting a tree reuse the same pair safely.
+ * With {@link PredictionStrategy#SLL_THEN_LL} an input is parsed with SLL prediction first and parsed again
+ * with full LL prediction only if SLL fails. The input is read in place through a {@link StringCharStream}, so
+ * macro names of the tokens are looked up in the input without copying them.
+ */
+public class AntlrParserBackend implements MacrosParserBackend {
+
+    private final ThreadLocal<ParserState> states = ThreadLocal.withInitial(ParserState::new);
+    private final LongAdder sllParses = new LongAdder();
+    private final LongAdder llParses = new LongAdder();
+    private volatile PredictionStrategy predictionStrategy;
+
+    public AntlrParserBackend() {
+        this(PredictionStrategy.LL);
+    }
+
+    public AntlrParserBackend(@Nonnull PredictionStrategy predictionStrategy) {
+        this.predictionStrategy = predictionStrategy;
+    }
+
+    /**
+     * Parse an input string.
+     *
+     * @param input input string
+     * @return parse tree
+     */
+    @Nonnull
+    @Override
+    public MacrosParser.BodyContext parse(@Nonnull String input) {
+        ParserState state = states.get();
+        state.lexer.setInputStream(new StringCharStream(input));
+        CommonTokenStream tokens = new CommonTokenStream(state.lexer);
+        if (predictionStrategy == PredictionStrategy.SLL_THEN_LL) {
+            try {
+                MacrosParser.BodyContext body = state.parseSll(tokens);
+                sllParses.increment();
+                return body;
+            } catch (ParseCancellationException e) {
+                tokens.seek(0);
+            }
+        }
+        MacrosParser.BodyContext body = state.parseLl(tokens);
+        llParses.increment();
+        return body;
+    }
+
+    @Nonnull
+    public PredictionStrategy getPredictionStrategy() {
+        return predictionStrategy;
+    }
+
+    @Override
+    public void setPredictionStrategy(@Nonnull PredictionStrategy predictionStrategy) {
+        this.predictionStrategy = predictionStrategy;
+    }
+
+    /**
+     * Number of inputs parsed by the SLL stage.
+     *
+     * @return count
+     */
+    public long getSllParsesCount() {
+        return sllParses.sum();
+    }
+
+    /**
+     * Number of inputs parsed with full LL prediction: every input for {@link PredictionStrategy#LL}
+     * and inputs SLL failed on for {@link PredictionStrategy#SLL_THEN_LL}.
+     *
+     * @return count
+     */
+    public long getLlParsesCount() {
+        return llParses.sum();
+    }
+
+    private static class ParserState {
+        private final MacrosLexer lexer;
+        private final MacrosParser parser;
+        private final BailErrorStrategy bailErrorStrategy = new BailErrorStrategy();
+        private final DefaultErrorStrategy defaultErrorStrategy = new DefaultErrorStrategy();
+
+        private ParserState() {
+            lexer = new MacrosLexer(new StringCharStream(""));
+            lexer.removeErrorListeners();
+            lexer.addErrorListener(ThrowingErrorListener.ERROR_LISTENER);
+            parser = new MacrosParser(new CommonTokenStream(lexer));
+            parser.removeErrorListeners();
+            parser.addErrorListener(ThrowingErrorListener.ERROR_LISTENER);
+        }
+
+        private MacrosParser.BodyContext parseSll(CommonTokenStream tokens) {
+            parser.setTokenStream(tokens);
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(bailErrorStrategy);
+            parser.removeErrorListeners();
+            return parser.body();
+        }
+
+        private MacrosParser.BodyContext parseLl(CommonTokenStream tokens) {
+            parser.setTokenStream(tokens);
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.setErrorHandler(defaultErrorStrategy);
+            parser.removeErrorListeners();
+            parser.addErrorListener(ThrowingErrorListener.ERROR_LISTENER);
+            return parser.body();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Turns input strings into parse trees of the macros grammar. Implementations must be safe for concurrent use
+ * and must produce trees of {@link MacrosParser} contexts, the evaluator visits nothing else.
+ */
+public interface MacrosParserBackend {
+
+    /**
+     * Parse an input string.
+     *
+     * @param input input string
+     * @return parse tree
+     */
+    @Nonnull
+    MacrosParser.BodyContext parse(@Nonnull String input);
+
+    /**
+     * Select how ANTLR predicts alternatives. Backends which do not use ANTLR prediction ignore it.
+     *
+     * @param predictionStrategy prediction strategy
+     */
+    default void setPredictionStrategy(@Nonnull PredictionStrategy predictionStrategy) {
+    }
+}
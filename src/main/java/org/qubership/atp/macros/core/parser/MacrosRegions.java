@@ -0,0 +1,140 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import org.qubership.atp.macros.core.registry.MacrosNameMatcher;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Finds regions of a text which have the same parse alone as within the whole text. The evaluator uses them to parse
+ * again only the parts of a result which came from macro results, the rest of it was plain text already.
+ */
+public final class MacrosRegions {
+
+    private MacrosRegions() {
+    }
+
+    /**
+     * Move the start of a range left over a call start or an escape crossing it.
+     *
+     * @param text text
+     * @param from start of the range
+     * @return start of the window, a token boundary of the text
+     */
+    public static int windowStart(@Nonnull CharSequence text, int from) {
+        int start = from;
+        while (start > 0 && MacrosNameMatcher.isMacroNameSymbol(text.charAt(start - 1))) {
+            start--;
+        }
+        start = start > 0 && isMarker(text.charAt(start - 1)) ? start - 1 : from;
+        while (start > 0 && text.charAt(start - 1) == '\\') {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * Move the end of a range right over a call start or an escape crossing it.
+     *
+     * @param text text
+     * @param to   end of the range
+     * @return end of the window
+     */
+    public static int windowEnd(@Nonnull CharSequence text, int to) {
+        int length = text.length();
+        int end = to;
+        if (end > 0 && text.charAt(end - 1) == '\\') {
+            while (end < length && text.charAt(end) == '\\') {
+                end++;
+            }
+            end = Math.min(end + 1, length);
+        }
+        int start = end;
+        while (start > 0 && MacrosNameMatcher.isMacroNameSymbol(text.charAt(start - 1))) {
+            start--;
+        }
+        if (start > 0 && isMarker(text.charAt(start - 1))) {
+            while (end < length && MacrosNameMatcher.isMacroNameSymbol(text.charAt(end))) {
+                end++;
+            }
+            if (end < length && text.charAt(end) == '(') {
+                end++;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Check a range holds a marker followed by a name and an opening bracket, registered or not.
+     *
+     * @param text text
+     * @param from start of the range, inclusive
+     * @param to   end of the range, exclusive
+     * @return true if the range holds a call start
+     */
+    public static boolean containsMacroStart(@Nonnull CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isMarker(text.charAt(i))) {
+                int end = i + 1;
+                while (end < to && MacrosNameMatcher.isMacroNameSymbol(text.charAt(end))) {
+                    end++;
+                }
+                if (end > i + 1 && end < to && text.charAt(end) == '(') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find regions holding the given windows and the calls starting in them up to their closing brackets. Windows
+     * must start outside of calls and hold every call start of the text; such a region has the same parse alone as
+     * within the whole text.
+     *
+     * @param text      text
+     * @param windows   start and end pairs of the windows, ascending and not overlapping
+     * @param count     number of window bounds
+     * @param lastClose position of the last closing bracket of the text or any position after it
+     * @return start and end pairs of the regions or null if the text has no complete parse or needs too much work
+     */
+    @Nullable
+    public static int[] regions(@Nonnull String text, @Nonnull int[] windows, int count, int lastClose) {
+        int limit = Math.max(windows[count - 1], Math.min(text.length(), lastClose + 1));
+        return new MacrosTreeBuilder(new MacrosScanner(text, windows[0], limit)).regions(windows, count);
+    }
+
+    /**
+     * Find the end of the first segment of a partly read text which starts with a call start: the calls starting
+     * in the segment with all text they can span. Text read later can not change the parse of the segment, provided
+     * the whole text has a complete parse.
+     *
+     * @param text text read so far
+     * @return end of the segment or -1 if more text is needed
+     */
+    public static int segmentEnd(@Nonnull String text) {
+        MacrosScanner tokens = new MacrosScanner(text);
+        // the last token and the one before it may still change, like a marker and a name before a bracket
+        return new MacrosTreeBuilder(tokens).segmentEnd(tokens.size - 3);
+    }
+
+    static boolean isMarker(char symbol) {
+        return symbol == '#' || symbol == '$';
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import java.util.Arrays;
+
+import org.antlr.v4.runtime.Token;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosLexer;
+import org.qubership.atp.macros.core.registry.MacrosNameMatcher;
+
+/**
+ * Splits an input string or its range into the tokens of {@link MacrosLexer}, rule by rule: the longest match
+ * wins and the rule declared first wins a tie. Tokens are kept as arrays of types and bounds within the input,
+ * the last token is EOF at the end of the range.
+ */
+final class MacrosScanner {
+
+    final String input;
+    final int limit;
+    int size;
+    int[] types;
+    int[] starts;
+    int[] stops;
+
+    MacrosScanner(String input) {
+        this(input, 0, input.length());
+    }
+
+    MacrosScanner(String input, int from, int to) {
+        this.input = input;
+        this.limit = to;
+        int capacity = Math.max((to - from) / 4, 16);
+        types = new int[capacity];
+        starts = new int[capacity];
+        stops = new int[capacity];
+        scan(from);
+    }
+
+    private void scan(int from) {
+        int position = from;
+        while (position < limit) {
+            int type;
+            int end;
+            switch (input.charAt(position)) {
+                case '#', '$' -> {
+                    int nameEnd = nameEnd(position + 1);
+                    if (nameEnd > position + 1 && nameEnd < limit && input.charAt(nameEnd) == '(') {
+                        type = MacrosLexer.MACROS;
+                        end = nameEnd + 1;
+                    } else {
+                        type = MacrosLexer.MACROS_MARKER;
+                        end = position + 1;
+                    }
+                }
+                case '(' -> {
+                    type = MacrosLexer.OPEN;
+                    end = position + 1;
+                }
+                case ')' -> {
+                    type = MacrosLexer.CLOSE;
+                    end = position + 1;
+                }
+                case '\'' -> {
+                    type = MacrosLexer.QUO;
+                    end = position + 1;
+                }
+                case '\\' -> {
+                    if (position + 1 < limit && isEscaped(input.charAt(position + 1))) {
+                        type = MacrosLexer.ESC;
+                        end = position + 2;
+                    } else {
+                        type = MacrosLexer.SLASH;
+                        end = position + 1;
+                    }
+                }
+                case ',' -> {
+                    type = MacrosLexer.SEPARATOR;
+                    end = whitespaceEnd(position + 1);
+                }
+                default -> {
+                    int whitespaceEnd = whitespaceEnd(position);
+                    if (whitespaceEnd < limit && input.charAt(whitespaceEnd) == ',') {
+                        type = MacrosLexer.SEPARATOR;
+                        end = whitespaceEnd(whitespaceEnd + 1);
+                    } else {
+                        end = textEnd(position);
+                        type = nameEnd(position) == end ? MacrosLexer.MACROS_NAME : MacrosLexer.TEXT;
+                    }
+                }
+            }
+            add(type, position, end - 1);
+            position = end;
+        }
+        add(Token.EOF, limit, limit - 1);
+    }
+
+    private void add(int type, int start, int stop) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+        }
+        types[size] = type;
+        starts[size] = start;
+        stops[size] = stop;
+        size++;
+    }
+
+    private int nameEnd(int position) {
+        while (position < limit && MacrosNameMatcher.isMacroNameSymbol(input.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private int whitespaceEnd(int position) {
+        while (position < limit && isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private int textEnd(int position) {
+        while (position < limit && isText(input.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isWhitespace(char symbol) {
+        return symbol == ' ' || symbol == '\r' || symbol == '\t';
+    }
+
+    private static boolean isText(char symbol) {
+        return symbol != '$' && symbol != '#' && symbol != '(' && symbol != ')' && symbol != '\''
+                && symbol != '\\' && symbol != ',';
+    }
+
+    static boolean isEscaped(char symbol) {
+        return switch (symbol) {
+            case '&', '$', '"', '\'', '\\', ']', '[', '<', '>', 'n', 't', 'r' -> true;
+            default -> false;
+        };
+    }
+}
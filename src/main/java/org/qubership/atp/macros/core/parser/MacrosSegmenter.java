@@ -0,0 +1,194 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.qubership.atp.macros.core.registry.MacrosNameMatcher;
+
+import jakarta.annotation.Nonnull;
+import lombok.Getter;
+
+/**
+ * Splits a stream into segments of plain text and segments of macro calls. Plain text is handed out as soon as
+ * it is read; a call is buffered with all text it can span, until no text read later can close it or the
+ * buffered text reaches the limit of a call length.
+ */
+public final class MacrosSegmenter {
+
+    private static final int READ_SIZE = 8192;
+    private static final int MIN_WINDOW = 256;
+
+    private final Reader reader;
+    private final int maxCallLength;
+    private final char[] chunk = new char[READ_SIZE];
+    private final StringBuilder pending = new StringBuilder();
+    private int offset;
+    private long dropped;
+    private int window = MIN_WINDOW;
+    private int checkedLength;
+    private boolean endOfInput;
+    @Getter
+    private String text;
+    @Getter
+    private boolean call;
+
+    public MacrosSegmenter(@Nonnull Reader reader) {
+        this(reader, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param reader        input
+     * @param maxCallLength max number of characters buffered for a call
+     */
+    public MacrosSegmenter(@Nonnull Reader reader, int maxCallLength) {
+        if (maxCallLength <= 0) {
+            throw new IllegalArgumentException("Max call length must be positive: " + maxCallLength);
+        }
+        this.reader = reader;
+        this.maxCallLength = maxCallLength;
+    }
+
+    /**
+     * Read the next segment.
+     *
+     * @return false at the end of the input
+     * @throws IOException if the input can not be read or a call is not closed within the max call length
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (offset == pending.length()) {
+                if (!read()) {
+                    return false;
+                }
+                continue;
+            }
+            int literalEnd = literalEnd();
+            if (literalEnd > offset) {
+                take(literalEnd, false);
+                return true;
+            }
+            if (literalEnd == offset) {
+                int end = callEnd();
+                if (end > offset) {
+                    take(end, true);
+                    return true;
+                }
+                if (pending.length() - offset >= maxCallLength) {
+                    throw new IOException("Macro call at offset %d is not closed within %d characters"
+                            .formatted(dropped + offset, maxCallLength));
+                }
+            }
+            if (!read()) {
+                take(pending.length(), literalEnd == offset);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Find the end of plain text before the first call start, without splitting an escape or a call start.
+     *
+     * @return end of the plain text or -1 if the pending text starts with something which needs more input
+     */
+    private int literalEnd() {
+        int length = pending.length();
+        int position = offset;
+        while (position < length) {
+            char symbol = pending.charAt(position);
+            if (symbol == '\\') {
+                if (position + 1 == length) {
+                    return endOfInput ? length : boundary(position);
+                }
+                position += MacrosScanner.isEscaped(pending.charAt(position + 1)) ? 2 : 1;
+            } else if (MacrosRegions.isMarker(symbol)) {
+                int nameEnd = position + 1;
+                while (nameEnd < length && MacrosNameMatcher.isMacroNameSymbol(pending.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                if (nameEnd == length) {
+                    return endOfInput ? length : boundary(position);
+                }
+                if (nameEnd > position + 1 && pending.charAt(nameEnd) == '(') {
+                    return position;
+                }
+                position++;
+            } else {
+                position++;
+            }
+        }
+        return length;
+    }
+
+    private int boundary(int position) {
+        return position > offset ? position : -1;
+    }
+
+    /**
+     * Find the end of the call starting the pending text. A window of the text is analyzed, the window doubles
+     * until the end is found, so a long call is analyzed a logarithmic number of times.
+     *
+     * @return end of the call or -1 if more input is needed
+     */
+    private int callEnd() {
+        while (true) {
+            int available = pending.length() - offset;
+            int length = Math.min(window, available);
+            if (length >= checkedLength * 2) {
+                checkedLength = length;
+                int end = MacrosRegions.segmentEnd(pending.substring(offset, offset + length));
+                if (end > 0) {
+                    return offset + end;
+                }
+            }
+            if (window < available) {
+                window *= 2;
+            } else {
+                return endOfInput ? pending.length() : -1;
+            }
+        }
+    }
+
+    private boolean read() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        int count = reader.read(chunk);
+        if (count < 0) {
+            endOfInput = true;
+            return true;
+        }
+        pending.append(chunk, 0, count);
+        return true;
+    }
+
+    private void take(int end, boolean isCall) {
+        text = pending.substring(offset, end);
+        call = isCall;
+        offset = end;
+        window = MIN_WINDOW;
+        checkedLength = 0;
+        if (offset > READ_SIZE && offset * 2 > pending.length()) {
+            pending.delete(0, offset);
+            dropped += offset;
+            offset = 0;
+        }
+    }
+}
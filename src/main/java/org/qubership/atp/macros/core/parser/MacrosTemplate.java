@@ -0,0 +1,63 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Parsed form of an input string: top level literal segments (text, quotes, slashes) and macro-call nodes
+ * as produced by the parser. Templates are never modified after creation, so one instance may be visited
+ * any number of times, from any number of threads.
+ */
+public class MacrosTemplate {
+
+    private final String source;
+    private final MacrosParser.BodyContext body;
+
+    /**
+     * Constructor.
+     *
+     * @param source input string the template was parsed from
+     * @param body   parse tree of the input string
+     */
+    public MacrosTemplate(@Nonnull String source, @Nonnull MacrosParser.BodyContext body) {
+        this.source = source;
+        this.body = body;
+    }
+
+    @Nonnull
+    public String getSource() {
+        return source;
+    }
+
+    @Nonnull
+    public MacrosParser.BodyContext getBody() {
+        return body;
+    }
+
+    /**
+     * Weight of the template in the cache. Proportional to the source length, since both the char stream
+     * and the token list retained by the parse tree grow with it.
+     *
+     * @return weight
+     */
+    public int getWeight() {
+        return source.length();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import java.util.function.Function;
+
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Bounded LRU cache of {@link MacrosTemplate}s keyed by the input string. The bound is expressed in
+ * characters of cached input rather than in entries, so memory stays bounded whatever the input sizes are.
+ */
+public class MacrosTemplateCache {
+
+    public static final long DEFAULT_MAX_WEIGHT = 4L * 1024 * 1024;
+
+    private final Cache<String, MacrosTemplate> templates;
+
+    public MacrosTemplateCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxWeight max summary length of cached inputs
+     */
+    public MacrosTemplateCache(long maxWeight) {
+        this.templates = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, MacrosTemplate template) -> template.getWeight())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a template for the input, parsing it on cache miss.
+     *
+     * @param input  input string
+     * @param parser function which parses the input
+     * @return template
+     */
+    @Nonnull
+    public MacrosTemplate get(@Nonnull String input, @Nonnull Function<String, MacrosParser.BodyContext> parser) {
+        MacrosTemplate template = templates.getIfPresent(input);
+        if (template == null) {
+            template = new MacrosTemplate(input, parser.apply(input));
+            templates.put(input, template);
+        }
+        return template;
+    }
+
+    public void invalidateAll() {
+        templates.invalidateAll();
+    }
+
+    public long size() {
+        return templates.size();
+    }
+
+    @Nonnull
+    public CacheStats getStats() {
+        return templates.stats();
+    }
+}
@@ -0,0 +1,543 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import java.io.Serial;
+import java.util.Arrays;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.tree.TerminalNodeImpl;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosLexer;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+
+/**
+ * Builds the parse tree ANTLR builds for the tokens of {@link MacrosScanner}. The grammar is ambiguous:
+ * brackets and separators inside macro arguments may be text, and ANTLR takes the first alternative of every
+ * decision which still leads to a complete parse. Inside one macro call the grammar is a finite automaton
+ * over tokens and nested calls, so the builder first collects for every call all tokens which can close it,
+ * then walks each call it builds backwards to know which automaton states still lead to a good closing token,
+ * and finally makes the same choices as ANTLR going forward. Inputs without a complete parse, nested too deep
+ * or needing too much work are not built, such inputs are left to ANTLR and its error recovery.
+ */
+final class MacrosTreeBuilder {
+
+    /*
+     * Automaton states of a macro call after its start token. macroParams starts with a separator required
+     * (first alternative), allowed (after a separator) or forbidden (second alternative).
+     */
+    private static final int REQUIRED = 0;
+    private static final int ALLOWED = 1;
+    private static final int FORBIDDEN = 2;
+    private static final int CALL_START = 0;
+    private static final int PARAM_START = 1;
+    private static final int UNQUOTED_ARG = 4;
+    private static final int QUOTE_OPEN = 7;
+    private static final int QUOTED_ARG = 10;
+    private static final int PARAM_END = 13;
+    private static final int STATES_COUNT = 16;
+
+    /*
+     * Transitions are encoded as target state and kind; for CLOSED the target is the offset of the closing
+     * token. Transitions of a state are listed in the order ANTLR prefers them.
+     */
+    private static final int STAY = 0;
+    private static final int CONSUME = 1;
+    private static final int NESTED = 2;
+    private static final int CLOSED = 3;
+
+    private static final int MAX_DEPTH = 128;
+    private static final int INVOKING_STATE = 0;
+    private static final int[] NO_ENDS = new int[0];
+
+    private final MacrosScanner tokens;
+    private final int[] types;
+    private final int[][] ends;
+    private final Token[] tokenObjects;
+    private final int[] transitions = new int[3];
+    private final Pair<TokenSource, CharStream> source;
+    private long budget;
+    private int depth;
+    private int position;
+    private int reach;
+
+    MacrosTreeBuilder(MacrosScanner tokens) {
+        this.tokens = tokens;
+        this.types = tokens.types;
+        this.ends = new int[tokens.size][];
+        this.tokenObjects = new Token[tokens.size];
+        this.source = new Pair<>(null, new StringCharStream(tokens.input));
+        this.budget = 32L * tokens.size + 4096;
+    }
+
+    /**
+     * Build the parse tree.
+     *
+     * @return parse tree or null if the input is left to ANTLR
+     */
+    MacrosParser.BodyContext build() {
+        int eof = tokens.size - 1;
+        if (eof == 0) {
+            return null;
+        }
+        try {
+            boolean[] completes = completes();
+            if (!completes[0]) {
+                return null;
+            }
+            MacrosParser.BodyContext body = new MacrosParser.BodyContext(null, -1);
+            body.start = token(0);
+            position = 0;
+            while (position < eof) {
+                bodyItem(body, completes);
+            }
+            body.stop = token(eof - 1);
+            return body;
+        } catch (GiveUpException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Find regions which hold the given windows and the calls starting in them up to the tokens closing the calls in
+     * the parse tree. Windows must start outside of calls and hold every call start of the input. A region has the
+     * same parse alone as within the input: every choice ANTLR makes in the input completes within the region,
+     * and every choice completing within the region completes in the input.
+     *
+     * @param windows start and end pairs of the windows, ascending and not overlapping
+     * @param count   number of window bounds
+     * @return start and end pairs of the regions or null if the input has no complete parse or needs too much work
+     */
+    int[] regions(int[] windows, int count) {
+        int eof = tokens.size - 1;
+        try {
+            boolean[] completes = completes();
+            if (!completes[0]) {
+                return null;
+            }
+            MacrosParser.BodyContext body = new MacrosParser.BodyContext(null, -1);
+            int[] regions = new int[count];
+            int regionsCount = 0;
+            position = 0;
+            for (int i = 0; i < count; i += 2) {
+                if (regionsCount == 0 || windows[i] >= regions[regionsCount - 1]) {
+                    while (position < eof && tokens.stops[position] < windows[i]) {
+                        position++;
+                    }
+                    regions[regionsCount] = tokens.starts[position];
+                    regionsCount += 2;
+                }
+                while (position < eof && tokens.starts[position] < windows[i + 1]) {
+                    bodyItem(body, completes);
+                }
+                regions[regionsCount - 1] = tokens.starts[position];
+            }
+            return Arrays.copyOf(regions, regionsCount);
+        } catch (GiveUpException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the end of the first segment of a partly read input which starts with a call: the calls starting
+     * in the segment with every token which can close them. Tokens read later can not change the parse of
+     * the segment, provided the input has a complete parse.
+     *
+     * @param finalTokens number of tokens which can not change when more input is read
+     * @return end of the segment or -1 if more input is needed
+     */
+    int segmentEnd(int finalTokens) {
+        try {
+            int end = 1;
+            for (int index = 0; index < end && index < finalTokens; index++) {
+                if (types[index] == MacrosLexer.MACROS) {
+                    int[] macroEnds = ends(index);
+                    end = Math.max(end, macroEnds.length > 0 ? macroEnds[macroEnds.length - 1] + 1 : reach + 1);
+                }
+            }
+            return reach < finalTokens && end < finalTokens ? tokens.starts[end] : -1;
+        } catch (GiveUpException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Whether the input from every token on has a complete parse.
+     */
+    private boolean[] completes() {
+        int eof = tokens.size - 1;
+        boolean[] completes = new boolean[tokens.size];
+        completes[eof] = true;
+        for (int index = eof - 1; index >= 0; index--) {
+            completes[index] = types[index] == MacrosLexer.MACROS
+                    ? anyEnd(ends(index), completes) : completes[index + 1];
+        }
+        return completes;
+    }
+
+    private void bodyItem(MacrosParser.BodyContext body, boolean[] completes) {
+        switch (types[position]) {
+            case MacrosLexer.MACROS -> macros(body, filterEnds(ends(position), completes));
+            case MacrosLexer.QUO -> body.addChild(terminalRule(new MacrosParser.QuoteContext(body,
+                    INVOKING_STATE)));
+            case MacrosLexer.SLASH -> body.addChild(terminalRule(new MacrosParser.SlashContext(body,
+                    INVOKING_STATE)));
+            default -> body.addChild(terminalRule(new MacrosParser.TextContext(body, INVOKING_STATE)));
+        }
+    }
+
+    private void macros(ParserRuleContext parent, int[] goodEnds) {
+        MacrosParser.MacrosContext macros = new MacrosParser.MacrosContext(parent, INVOKING_STATE);
+        parent.addChild(macros);
+        macros.start = token(position);
+        Call call = new Call(position + 1, goodEnds);
+        int first = call.base;
+        if (types[first] == MacrosLexer.CLOSE && call.isGood(first)
+                || types[first] == MacrosLexer.QUO && types[first + 1] == MacrosLexer.QUO
+                && types[first + 2] == MacrosLexer.CLOSE && call.isGood(first + 2)) {
+            MacrosParser.EmptyMacrosContext empty = new MacrosParser.EmptyMacrosContext(macros, INVOKING_STATE);
+            macros.addChild(empty);
+            empty.start = macros.start;
+            empty.addChild(terminalRule(new MacrosParser.MacrosStartContext(empty, INVOKING_STATE)));
+            while (types[position] == MacrosLexer.QUO) {
+                empty.addChild(terminal());
+            }
+            empty.addChild(terminalRule(new MacrosParser.MacrosEndContext(empty, INVOKING_STATE)));
+            empty.stop = token(position - 1);
+        } else {
+            macros.addChild(terminalRule(new MacrosParser.MacrosStartContext(macros, INVOKING_STATE)));
+            macroParams(macros, call);
+            macros.addChild(terminalRule(new MacrosParser.MacrosEndContext(macros, INVOKING_STATE)));
+        }
+        macros.stop = token(position - 1);
+    }
+
+    private void macroParams(ParserRuleContext parent, Call call) {
+        MacrosParser.MacroParamsContext params = new MacrosParser.MacroParamsContext(parent, INVOKING_STATE);
+        parent.addChild(params);
+        params.start = token(position);
+        int mode = call.isViable(position, PARAM_START + REQUIRED) ? REQUIRED : FORBIDDEN;
+        macroParam(params, call, mode);
+        while (mode != FORBIDDEN && types[position] == MacrosLexer.SEPARATOR) {
+            params.addChild(terminal());
+            mode = ALLOWED;
+            macroParam(params, call, mode);
+        }
+        params.stop = token(position - 1);
+    }
+
+    private void macroParam(ParserRuleContext parent, Call call, int mode) {
+        MacrosParser.MacroParamContext param = new MacrosParser.MacroParamContext(parent, INVOKING_STATE);
+        parent.addChild(param);
+        param.start = token(position);
+        if (types[position] == MacrosLexer.QUO) {
+            param.addChild(terminal());
+            if (types[position] != MacrosLexer.QUO) {
+                macroArg(param, call, QUOTED_ARG + mode);
+            }
+            param.addChild(terminal());
+        } else if (canContinue(call, UNQUOTED_ARG + mode)) {
+            macroArg(param, call, UNQUOTED_ARG + mode);
+        }
+        param.stop = token(position - 1);
+    }
+
+    private void macroArg(ParserRuleContext parent, Call call, int state) {
+        MacrosParser.MacroArgContext arg = new MacrosParser.MacroArgContext(parent, INVOKING_STATE);
+        parent.addChild(arg);
+        arg.start = token(position);
+        do {
+            if (types[position] == MacrosLexer.MACROS) {
+                macros(arg, call.nestedEnds(position, state));
+            } else {
+                arg.addChild(terminalRule(new MacrosParser.TextContext(arg, INVOKING_STATE)));
+            }
+        } while (canContinue(call, state));
+        arg.stop = token(position - 1);
+    }
+
+    /**
+     * Whether the next token or nested call can be taken into an argument in the given state.
+     */
+    private boolean canContinue(Call call, int state) {
+        int type = types[position];
+        if (type == MacrosLexer.MACROS) {
+            return call.nestedEnds(position, state).length > 0;
+        }
+        return isText(type) && call.isViable(position + 1, state);
+    }
+
+    private ParserRuleContext terminalRule(ParserRuleContext context) {
+        context.start = token(position);
+        context.stop = context.start;
+        context.addChild(terminal());
+        return context;
+    }
+
+    private TerminalNodeImpl terminal() {
+        return new TerminalNodeImpl(token(position++));
+    }
+
+    private Token token(int index) {
+        if (index < 0) {
+            return null;
+        }
+        Token token = tokenObjects[index];
+        if (token == null) {
+            CommonToken created = new CommonToken(source, types[index], Token.DEFAULT_CHANNEL,
+                    tokens.starts[index], tokens.stops[index]);
+            created.setTokenIndex(index);
+            tokenObjects[index] = created;
+            token = created;
+        }
+        return token;
+    }
+
+    /**
+     * All tokens which can close the call started at the given token, ascending.
+     */
+    private int[] ends(int macro) {
+        int[] result = ends[macro];
+        if (result == null) {
+            result = computeEnds(macro);
+            ends[macro] = result;
+        }
+        return result;
+    }
+
+    private int[] computeEnds(int macro) {
+        if (++depth > MAX_DEPTH) {
+            throw GiveUpException.INSTANCE;
+        }
+        int base = macro + 1;
+        int[] active = new int[16];
+        active[0] = 1 << CALL_START;
+        int last = base;
+        int[] found = NO_ENDS;
+        int foundCount = 0;
+        for (int index = base; index <= last; index++) {
+            int states = active[index - base];
+            for (int state = 0; state < STATES_COUNT; state++) {
+                if ((states & 1 << state) == 0) {
+                    continue;
+                }
+                spend();
+                int count = transitions(state, index);
+                for (int i = 0; i < count; i++) {
+                    int target = transitions[i] >> 2;
+                    switch (transitions[i] & 3) {
+                        case STAY -> states |= 1 << target;
+                        case CONSUME -> {
+                            active = mark(active, index + 1 - base, target);
+                            last = Math.max(last, index + 1);
+                        }
+                        case NESTED -> {
+                            for (int end : ends(index)) {
+                                active = mark(active, end + 1 - base, target);
+                                last = Math.max(last, end + 1);
+                            }
+                        }
+                        default -> {
+                            if (foundCount == found.length) {
+                                found = Arrays.copyOf(found, Math.max(foundCount * 2, 4));
+                            }
+                            found[foundCount++] = index + target;
+                        }
+                    }
+                }
+            }
+        }
+        depth--;
+        reach = Math.max(reach, last);
+        int[] result = Arrays.copyOf(found, foundCount);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int[] mark(int[] active, int offset, int state) {
+        if (offset >= active.length) {
+            active = Arrays.copyOf(active, Math.max(active.length * 2, offset + 1));
+        }
+        active[offset] |= 1 << state;
+        return active;
+    }
+
+    /**
+     * Fill {@link #transitions} of a state at a token.
+     *
+     * @return transitions count
+     */
+    private int transitions(int state, int index) {
+        int type = types[index];
+        int count = 0;
+        if (state == CALL_START) {
+            if (type == MacrosLexer.CLOSE) {
+                transitions[count++] = CLOSED;
+            } else if (type == MacrosLexer.QUO && types[index + 1] == MacrosLexer.QUO
+                    && types[index + 2] == MacrosLexer.CLOSE) {
+                transitions[count++] = 2 << 2 | CLOSED;
+            }
+            transitions[count++] = (PARAM_START + REQUIRED) << 2 | STAY;
+            transitions[count++] = (PARAM_START + FORBIDDEN) << 2 | STAY;
+            return count;
+        }
+        int mode = (state - 1) % 3;
+        int kind = state - mode;
+        if (kind == PARAM_START && type == MacrosLexer.QUO) {
+            transitions[count++] = (QUOTE_OPEN + mode) << 2 | CONSUME;
+        } else if (kind == PARAM_START || kind == UNQUOTED_ARG) {
+            count = item(type, UNQUOTED_ARG + mode, count);
+            transitions[count++] = (PARAM_END + mode) << 2 | STAY;
+        } else if (kind == QUOTE_OPEN || kind == QUOTED_ARG) {
+            if (type == MacrosLexer.QUO) {
+                transitions[count++] = (PARAM_END + mode) << 2 | CONSUME;
+            } else {
+                count = item(type, QUOTED_ARG + mode, count);
+            }
+        } else if (type == MacrosLexer.SEPARATOR && mode != FORBIDDEN) {
+            transitions[count++] = (PARAM_START + ALLOWED) << 2 | CONSUME;
+        } else if (type == MacrosLexer.CLOSE && mode != REQUIRED) {
+            transitions[count++] = CLOSED;
+        }
+        return count;
+    }
+
+    private int item(int type, int target, int count) {
+        if (type == MacrosLexer.MACROS) {
+            transitions[count++] = target << 2 | NESTED;
+        } else if (isText(type)) {
+            transitions[count++] = target << 2 | CONSUME;
+        }
+        return count;
+    }
+
+    private static boolean isText(int type) {
+        return switch (type) {
+            case MacrosLexer.TEXT, MacrosLexer.MACROS_NAME, MacrosLexer.MACROS_MARKER, MacrosLexer.OPEN,
+                    MacrosLexer.CLOSE, MacrosLexer.SEPARATOR, MacrosLexer.ESC -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean anyEnd(int[] ends, boolean[] completes) {
+        for (int end : ends) {
+            if (completes[end + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] filterEnds(int[] ends, boolean[] completes) {
+        int[] result = new int[ends.length];
+        int count = 0;
+        for (int end : ends) {
+            if (completes[end + 1]) {
+                result[count++] = end;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void spend() {
+        if (--budget < 0) {
+            throw GiveUpException.INSTANCE;
+        }
+    }
+
+    /**
+     * Macro call being built: automaton states, by token, which lead to one of the good closing tokens.
+     */
+    private final class Call {
+
+        private final int base;
+        private final int[] goodEnds;
+        private final int[] viable;
+
+        private Call(int base, int[] goodEnds) {
+            this.base = base;
+            this.goodEnds = goodEnds;
+            int last = goodEnds[goodEnds.length - 1];
+            viable = new int[last - base + 1];
+            for (int index = last; index >= base; index--) {
+                int states = 0;
+                for (int state = STATES_COUNT - 1; state >= 0; state--) {
+                    spend();
+                    int count = transitions(state, index);
+                    for (int i = 0; i < count; i++) {
+                        if (leadsToGoodEnd(transitions[i], index, states)) {
+                            states |= 1 << state;
+                            break;
+                        }
+                    }
+                }
+                viable[index - base] = states;
+            }
+        }
+
+        private boolean leadsToGoodEnd(int transition, int index, int states) {
+            int target = transition >> 2;
+            return switch (transition & 3) {
+                case STAY -> (states & 1 << target) != 0;
+                case CONSUME -> isViable(index + 1, target);
+                case NESTED -> nestedEnds(index, target).length > 0;
+                default -> isGood(index + target);
+            };
+        }
+
+        private boolean isGood(int end) {
+            return Arrays.binarySearch(goodEnds, end) >= 0;
+        }
+
+        private boolean isViable(int index, int state) {
+            return index >= base && index - base < viable.length && (viable[index - base] & 1 << state) != 0;
+        }
+
+        /**
+         * Closing tokens of a nested call after which the given state leads to a good closing token.
+         */
+        private int[] nestedEnds(int macro, int state) {
+            int[] all = ends(macro);
+            int[] result = new int[all.length];
+            int count = 0;
+            for (int end : all) {
+                if (isViable(end + 1, state)) {
+                    result[count++] = end;
+                }
+            }
+            return count == all.length ? all : Arrays.copyOf(result, count);
+        }
+    }
+
+    /**
+     * Thrown when the input is left to ANTLR.
+     */
+    private static final class GiveUpException extends RuntimeException {
+
+        @Serial
+        private static final long serialVersionUID = 3019274650183946215L;
+        private static final GiveUpException INSTANCE = new GiveUpException();
+
+        private GiveUpException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+/**
+ * How {@link AntlrParserBackend} predicts alternatives of the grammar.
+ */
+public enum PredictionStrategy {
+
+    /**
+     * Full LL prediction with error recovery, the default ANTLR behaviour.
+     */
+    LL,
+
+    /**
+     * Cheaper SLL prediction which bails out on the first syntax error; only failed inputs are parsed again
+     * with full LL prediction and error recovery.
+     */
+    SLL_THEN_LL
+}
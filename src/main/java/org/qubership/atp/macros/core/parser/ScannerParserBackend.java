@@ -0,0 +1,84 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Hand-written parser backend: a scanner replaying the rules of the generated lexer and a tree builder making
+ * the choices ANTLR makes, without ANTLR prediction and error recovery. Trees are the same as the ones of
+ * {@link AntlrParserBackend}. Inputs without a complete parse, like calls without a closing bracket, are
+ * parsed by the fallback backend so that the evaluation result including error recovery stays the same.
+ */
+public class ScannerParserBackend implements MacrosParserBackend {
+
+    private final MacrosParserBackend fallback;
+    private final LongAdder scannerParses = new LongAdder();
+    private final LongAdder fallbackParses = new LongAdder();
+
+    public ScannerParserBackend() {
+        this(new AntlrParserBackend());
+    }
+
+    public ScannerParserBackend(@Nonnull MacrosParserBackend fallback) {
+        this.fallback = fallback;
+    }
+
+    @Nonnull
+    @Override
+    public MacrosParser.BodyContext parse(@Nonnull String input) {
+        MacrosParser.BodyContext body = new MacrosTreeBuilder(new MacrosScanner(input)).build();
+        if (body != null) {
+            scannerParses.increment();
+            return body;
+        }
+        fallbackParses.increment();
+        return fallback.parse(input);
+    }
+
+    /**
+     * Select the prediction strategy of the fallback backend.
+     *
+     * @param predictionStrategy prediction strategy
+     */
+    @Override
+    public void setPredictionStrategy(@Nonnull PredictionStrategy predictionStrategy) {
+        fallback.setPredictionStrategy(predictionStrategy);
+    }
+
+    /**
+     * Number of inputs parsed without the fallback backend.
+     *
+     * @return count
+     */
+    public long getScannerParsesCount() {
+        return scannerParses.sum();
+    }
+
+    /**
+     * Number of inputs passed to the fallback backend.
+     *
+     * @return count
+     */
+    public long getFallbackParsesCount() {
+        return fallbackParses.sum();
+    }
+}
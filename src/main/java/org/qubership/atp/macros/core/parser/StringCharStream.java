@@ -0,0 +1,111 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * Character stream over a string without copying it. Indexes are UTF-16 code units, as in {@link MacrosScanner}.
+ * The stream is also the character sequence of the string, so token text can be read in place.
+ */
+final class StringCharStream implements CharStream, CharSequence {
+
+    private final String input;
+    private int index;
+
+    StringCharStream(String input) {
+        this.input = input;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = interval.a;
+        int stop = Math.min(interval.b, input.length() - 1);
+        if (start >= input.length() || stop < start) {
+            return "";
+        }
+        return input.substring(start, stop + 1);
+    }
+
+    @Override
+    public void consume() {
+        if (index >= input.length()) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        index++;
+    }
+
+    @Override
+    public int LA(int offset) {
+        int position = offset > 0 ? index + offset - 1 : index + offset;
+        if (offset == 0 || position < 0 || position >= input.length()) {
+            return offset == 0 ? 0 : IntStream.EOF;
+        }
+        return input.charAt(position);
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        this.index = Math.min(index, input.length());
+    }
+
+    @Override
+    public int size() {
+        return input.length();
+    }
+
+    @Override
+    public String getSourceName() {
+        return IntStream.UNKNOWN_SOURCE_NAME;
+    }
+
+    @Override
+    public int length() {
+        return input.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return input.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return input.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return input;
+    }
+}
@@ -163,6 +163,16 @@ public abstract class AbstractContext<T extends AbstractContext> {
     @Nullable
     public abstract String getResultOnEvaluationEnd();
 
+    /**
+     * Layout of the result of the evaluation, used to parse only generated parts of the result on the next round.
+     *
+     * @return layout or null if the whole result has to be parsed again
+     */
+    @Nullable
+    public ResultLayout getResultLayoutOnEvaluationEnd() {
+        return null;
+    }
+
     @SuppressWarnings("unchecked")
     @Nullable
     <K> K getData(@Nonnull DataKey<K> key) {
@@ -0,0 +1,49 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.processor;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Result of one input of a parallel batch: the evaluated string or the error the evaluation failed with.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class EvaluationResult {
+    @Nullable
+    private final String result;
+    @Nullable
+    private final Throwable error;
+
+    @Nonnull
+    public static EvaluationResult success(@Nullable String result) {
+        return new EvaluationResult(result, null);
+    }
+
+    @Nonnull
+    public static EvaluationResult failure(@Nonnull Throwable error) {
+        return new EvaluationResult(null, error);
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
@@ -16,9 +16,15 @@
 
 package org.qubership.atp.macros.core.processor;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
@@ -29,4 +35,72 @@ public interface Evaluator {
 
     <T extends AbstractContext<T>> String evaluate(@Nonnull Macros macros, @Nullable List<String> args,
                                                    @Nonnull T context);
+
+    /**
+     * Evaluate a string with a known layout, only its generated ranges need to be parsed.
+     *
+     * @param input   input string
+     * @param layout  layout of the input or null if it is not known
+     * @param context macros context
+     * @param <T>     context type
+     * @return evaluated string
+     */
+    default <T extends AbstractContext<T>> String evaluate(@Nonnull String input, @Nullable ResultLayout layout,
+                                                           @Nonnull T context) {
+        return evaluate(input, context);
+    }
+
+    /**
+     * Evaluate a macro call from its parse subtree instead of parsing its text again.
+     *
+     * @param macros  parse subtree of the call
+     * @param context macros context
+     * @param <T>     context type
+     * @return evaluated string
+     */
+    default <T extends AbstractContext<T>> String evaluate(@Nonnull MacrosParser.MacrosContext macros,
+                                                           @Nonnull T context) {
+        return evaluate(macros.getText(), context);
+    }
+
+    /**
+     * Evaluate a batch of strings with one context. Equal inputs are evaluated once and get the same result.
+     *
+     * @param inputs  input strings
+     * @param context macros context, reset before each evaluation
+     * @param <T>     context type
+     * @return evaluated strings in the order of the inputs
+     */
+    @Nonnull
+    default <T extends AbstractContext<T>> List<String> evaluateAll(@Nonnull Collection<String> inputs,
+                                                                    @Nonnull T context) {
+        Map<String, String> results = new LinkedHashMap<>();
+        List<String> evaluated = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            if (!results.containsKey(input)) {
+                results.put(input, evaluate(input, context));
+            }
+            evaluated.add(results.get(input));
+        }
+        return evaluated;
+    }
+
+    /**
+     * Evaluate named strings as a batch, see {@link #evaluateAll(Collection, AbstractContext)}.
+     *
+     * @param inputs  input strings by names
+     * @param context macros context, reset before each evaluation
+     * @param <T>     context type
+     * @return evaluated strings by the same names, in the order of the inputs
+     */
+    @Nonnull
+    default <T extends AbstractContext<T>> Map<String, String> evaluateAll(@Nonnull Map<String, String> inputs,
+                                                                           @Nonnull T context) {
+        Iterator<String> results = evaluateAll(inputs.values(), context).iterator();
+        Map<String, String> evaluated = new LinkedHashMap<>();
+        for (String name : inputs.keySet()) {
+            evaluated.put(name, results.next());
+        }
+        return evaluated;
+    }
 }
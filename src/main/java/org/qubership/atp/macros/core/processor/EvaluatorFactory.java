@@ -0,0 +1,185 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.processor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.qubership.atp.macros.core.calculator.CompositeMacrosCalculator;
+import org.qubership.atp.macros.core.calculator.MacrosCalculator;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.AntlrParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosTemplateCache;
+import org.qubership.atp.macros.core.registry.LayeredMacroRegistry;
+import org.qubership.atp.macros.core.registry.MacroRegistry;
+import org.qubership.atp.macros.core.registry.MacroRegistryDelta;
+import org.qubership.atp.macros.core.registry.MacroRegistryHolder;
+import org.qubership.atp.macros.core.registry.MacroRegistrySnapshot;
+import org.qubership.atp.macros.core.registry.MacroRegistryValidator;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Evaluators of projects over layered registries: the global macros are one layer shared by all projects and each
+ * project adds only its own macros, so the global macros, compiled scripts and parsed templates are held once.
+ * Evaluators of projects not used for a while are evicted, and the least recently used ones when there are too many.
+ * With a {@link CompositeMacrosCalculator} the engines of the macros of a project are checked when they are loaded.
+ */
+public class EvaluatorFactory {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 500;
+    public static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+    private final MacroRegistry globalRegistry;
+    private final Function<UUID, ? extends Collection<Macros>> projectMacros;
+    private final MacrosCalculator calculator;
+    private final MacrosTemplateCache templateCache;
+    private final MacrosParserBackend parserBackend;
+    private final MacroRegistryValidator validator;
+    private final LoadingCache<UUID, ProjectEvaluator> evaluators;
+
+    /**
+     * Constructor with default bounds, a template cache of default size and the ANTLR parser backend.
+     *
+     * @param globalRegistry registry of the global macros
+     * @param projectMacros  loader of the macros of a project, global macros it returns are skipped
+     * @param calculator     calculator shared by all projects
+     */
+    public EvaluatorFactory(@Nonnull MacroRegistry globalRegistry,
+                            @Nonnull Function<UUID, ? extends Collection<Macros>> projectMacros,
+                            @Nonnull MacrosCalculator calculator) {
+        this(globalRegistry, projectMacros, calculator, new MacrosTemplateCache(), new AntlrParserBackend(),
+                DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_ACCESS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param globalRegistry    registry of the global macros
+     * @param projectMacros     loader of the macros of a project, global macros it returns are skipped
+     * @param calculator        calculator shared by all projects
+     * @param templateCache     template cache shared by all projects
+     * @param parserBackend     parser backend shared by all projects
+     * @param maximumSize       maximal number of cached evaluators
+     * @param expireAfterAccess time after which an unused evaluator is evicted
+     */
+    public EvaluatorFactory(@Nonnull MacroRegistry globalRegistry,
+                            @Nonnull Function<UUID, ? extends Collection<Macros>> projectMacros,
+                            @Nonnull MacrosCalculator calculator, @Nonnull MacrosTemplateCache templateCache,
+                            @Nonnull MacrosParserBackend parserBackend, long maximumSize,
+                            @Nonnull Duration expireAfterAccess) {
+        this.globalRegistry = globalRegistry;
+        this.projectMacros = projectMacros;
+        this.calculator = calculator;
+        this.templateCache = templateCache;
+        this.parserBackend = parserBackend;
+        this.validator = calculator instanceof CompositeMacrosCalculator composite ? composite::checkEngines : null;
+        this.evaluators = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .build(CacheLoader.from(this::createEvaluator));
+    }
+
+    /**
+     * Get the evaluator of a project, loading the macros of the project on cache miss.
+     *
+     * @param projectId project
+     * @return evaluator
+     */
+    @Nonnull
+    public EvaluatorImpl getEvaluator(@Nonnull UUID projectId) {
+        try {
+            return evaluators.getUnchecked(projectId).evaluator();
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drop the evaluator of a project, so its macros are loaded again on next use.
+     *
+     * @param projectId project
+     */
+    public void invalidate(@Nonnull UUID projectId) {
+        evaluators.invalidate(projectId);
+    }
+
+    /**
+     * Apply changes of the macros of a project to its evaluator, if it is cached, and drop the compiled scripts and
+     * memoized results of the changed and deleted macros. Changes of the global macros are applied too when the
+     * global registry is a {@link MacroRegistryHolder}.
+     *
+     * @param projectId project
+     * @param changes   loader of the changes since the current macros of the project and the global ones, like
+     *                  {@link org.qubership.atp.macros.core.repository.MacrosRepository#findDeltaByProjectId}
+     * @return the changes, empty if the evaluator of the project is not cached
+     */
+    @Nonnull
+    public MacroRegistryDelta refresh(@Nonnull UUID projectId,
+                                      @Nonnull Function<Collection<Macros>, MacroRegistryDelta> changes) {
+        ProjectEvaluator project = evaluators.getIfPresent(projectId);
+        if (project == null) {
+            return MacroRegistryDelta.empty();
+        }
+        List<Macros> current = new ArrayList<>(project.macros().snapshot().getAllMacros());
+        if (globalRegistry.snapshot() instanceof MacroRegistrySnapshot globalSnapshot) {
+            current.addAll(globalSnapshot.getAllMacros());
+        }
+        MacroRegistryDelta delta = changes.apply(current);
+        if (delta.isEmpty()) {
+            return delta;
+        }
+        project.macros().apply(delta.filter(macros -> projectId.equals(macros.getProjectUuid())));
+        if (globalRegistry instanceof MacroRegistryHolder globalHolder) {
+            globalHolder.apply(delta.filter(macros -> !projectId.equals(macros.getProjectUuid())));
+        }
+        calculator.invalidate(delta.getStale());
+        return delta;
+    }
+
+    public long size() {
+        return evaluators.size();
+    }
+
+    @Nonnull
+    private ProjectEvaluator createEvaluator(@Nonnull UUID projectId) {
+        List<Macros> overlay = new ArrayList<>();
+        for (Macros macros : projectMacros.apply(projectId)) {
+            if (projectId.equals(macros.getProjectUuid())) {
+                overlay.add(macros);
+            }
+        }
+        MacroRegistryHolder macros = new MacroRegistryHolder(new MacroRegistrySnapshot(overlay), validator);
+        MacroRegistry registry = new LayeredMacroRegistry(globalRegistry, macros);
+        return new ProjectEvaluator(macros, new EvaluatorImpl(registry, calculator, templateCache, parserBackend));
+    }
+
+    private record ProjectEvaluator(MacroRegistryHolder macros, EvaluatorImpl evaluator) {
+    }
+}
@@ -16,19 +16,38 @@
 
 package org.qubership.atp.macros.core.processor;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CodePointCharStream;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTreeVisitor;
 import org.apache.commons.lang3.StringUtils;
 import org.qubership.atp.macros.core.calculator.MacrosCalculator;
-import org.qubership.atp.macros.core.exception.ThrowingErrorListener;
 import org.qubership.atp.macros.core.model.Macros;
-import org.qubership.atp.macros.core.parser.antlr4.MacrosLexer;
+import org.qubership.atp.macros.core.parser.AntlrParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosRegions;
+import org.qubership.atp.macros.core.parser.MacrosSegmenter;
+import org.qubership.atp.macros.core.parser.MacrosTemplate;
+import org.qubership.atp.macros.core.parser.MacrosTemplateCache;
+import org.qubership.atp.macros.core.parser.PredictionStrategy;
 import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+import org.qubership.atp.macros.core.registry.LayeredMacroRegistry;
 import org.qubership.atp.macros.core.registry.MacroRegistry;
+import org.qubership.atp.macros.core.registry.MacroRegistryImpl;
+import org.qubership.atp.macros.core.registry.MacroRegistrySnapshot;
+import org.qubership.atp.macros.core.registry.MacrosNameMatcher;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
@@ -36,13 +55,44 @@ import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 public class EvaluatorImpl implements Evaluator {
+    public static final int DEFAULT_MAX_CALL_LENGTH = 1024 * 1024;
+
     private final MacroRegistry registry;
     private final MacrosCalculator calculator;
-    private MacrosLexer macrosLexer = null;
-    private MacrosParser macrosParser = null;
+    private final MacrosTemplateCache templateCache;
+    private final MacrosParserBackend parserBackend;
+    private final LongAdder fastPathCount = new LongAdder();
+    private final LongAdder incrementalRoundsCount = new LongAdder();
+    private final ThreadLocal<MacroRegistry> pinnedRegistry = new ThreadLocal<>();
+    private volatile boolean incrementalRounds = true;
+    private volatile int maxCallLength = DEFAULT_MAX_CALL_LENGTH;
+
+    /**
+     * Constructor with a template cache of default size.
+     *
+     * @param registry   registry
+     * @param calculator calculator
+     */
+    public EvaluatorImpl(@Nonnull MacroRegistry registry, @Nonnull MacrosCalculator calculator) {
+        this(registry, calculator, new MacrosTemplateCache());
+    }
 
     /**
-     * Evaluate a string.
+     * Constructor with the ANTLR parser backend.
+     *
+     * @param registry      registry
+     * @param calculator    calculator
+     * @param templateCache template cache
+     */
+    public EvaluatorImpl(@Nonnull MacroRegistry registry, @Nonnull MacrosCalculator calculator,
+                         @Nonnull MacrosTemplateCache templateCache) {
+        this(registry, calculator, templateCache, new AntlrParserBackend());
+    }
+
+    /**
+     * Evaluate a string. After the first round only the parts of the result which came from macro results are
+     * parsed again, together with their calls up to the closing brackets; the whole result is parsed again when
+     * that can not be done exactly.
      * @param input input string
      * @param context macros context
      * @param <T> context type
@@ -50,8 +100,79 @@ public class EvaluatorImpl implements Evaluator {
      */
     @Nullable
     public <T extends AbstractContext<T>> String evaluate(@Nonnull String input, @Nonnull T context) {
+        return evaluate(input, null, context, 10);
+    }
+
+    @Nullable
+    @Override
+    public <T extends AbstractContext<T>> String evaluate(@Nonnull String input, @Nullable ResultLayout layout,
+                                                          @Nonnull T context) {
+        return evaluate(input, layout, context, 10);
+    }
+
+    /**
+     * Evaluate a macro call from its parse subtree. The first round visits the subtree, further rounds parse
+     * the generated parts of the result as usual.
+     *
+     * @param macros  parse subtree of the call
+     * @param context macros context
+     * @param <T>     context type
+     * @return evaluated string
+     */
+    @Nullable
+    @Override
+    public <T extends AbstractContext<T>> String evaluate(@Nonnull MacrosParser.MacrosContext macros,
+                                                          @Nonnull T context) {
+        return withPinnedRegistry(() -> {
+            String input = macros.getText();
+            if (!containsMacroCall(input, 0, input.length())) {
+                fastPathCount.increment();
+                return input;
+            }
+            T evaluated = new MacrosVisitorImpl<>(registry(), this, context.reset()).visit(macros);
+            if (evaluated == null) {
+                return input;
+            }
+            String result = evaluated.getResultOnEvaluationEnd();
+            if (result == null || result.equals(input)) {
+                return result;
+            }
+            return evaluateRounds(result, getLayout(evaluated, result), evaluated, 9);
+        });
+    }
+
+    @Nullable
+    private <T extends AbstractContext<T>> String evaluate(@Nonnull String input, @Nullable ResultLayout layout,
+                                                           @Nonnull T context, int triesCount) {
+        return withPinnedRegistry(() -> evaluateRounds(input, layout, context, triesCount));
+    }
+
+    /**
+     * Run an evaluation with the registry snapshot taken when the outermost evaluation on the thread started,
+     * so nested evaluations see the same macros even if the registry is swapped meanwhile.
+     */
+    private <R> R withPinnedRegistry(@Nonnull Supplier<R> evaluation) {
+        if (pinnedRegistry.get() != null) {
+            return evaluation.get();
+        }
+        pinnedRegistry.set(registry.snapshot());
+        try {
+            return evaluation.get();
+        } finally {
+            pinnedRegistry.remove();
+        }
+    }
+
+    @Nonnull
+    private MacroRegistry registry() {
+        MacroRegistry pinned = pinnedRegistry.get();
+        return pinned == null ? registry : pinned;
+    }
+
+    @Nullable
+    private <T extends AbstractContext<T>> String evaluateRounds(@Nonnull String input, @Nullable ResultLayout layout,
+                                                                 @Nonnull T context, int triesCount) {
         String result = input;
-        int triesCount = 10;
         while (true) {
             if (triesCount-- == -1) {
                 throw new CtxEvalException("Macros constantly reevaluates, please check for recursion."
@@ -61,6 +182,28 @@ public class EvaluatorImpl implements Evaluator {
             if (StringUtils.isEmpty(result)) {
                 return result;
             }
+            if (layout != null && incrementalRounds) {
+                //for generated text without calls of registered macros nothing can change
+                if (!containsGeneratedMacroCall(result, layout)) {
+                    fastPathCount.increment();
+                    return result;
+                }
+                Round<T> round = evaluateRegions(result, layout, context);
+                if (round != null) {
+                    incrementalRoundsCount.increment();
+                    if (round.result == null || round.result.equals(result)) {
+                        return round.result;
+                    }
+                    result = round.result;
+                    layout = round.layout;
+                    context = round.context;
+                    continue;
+                }
+            } else if (!containsMacroCall(result, 0, result.length())) {
+                //for input without calls of registered macros nothing can change
+                fastPathCount.increment();
+                return result;
+            }
             context = oneTimeEvaluate(result, context.reset());
             //for constructions that lexer can not parse
             if (context == null) {
@@ -73,34 +216,378 @@ public class EvaluatorImpl implements Evaluator {
             if (newResult.equals(result)) {
                 return result;
             }
+            layout = getLayout(context, newResult);
             result = newResult;
         }
     }
 
+    /**
+     * Pre-scan the generated ranges of a result for calls of registered macros, the rest of the result was plain text
+     * of the previous round.
+     */
+    private boolean containsGeneratedMacroCall(@Nonnull String result, @Nonnull ResultLayout layout) {
+        for (int i = 0; i < layout.getRangesCount(); i++) {
+            int from = MacrosRegions.windowStart(result, layout.getRangeStart(i));
+            int to = MacrosRegions.windowEnd(result, layout.getRangeEnd(i));
+            if (containsMacroCall(result, from, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluate only regions of the result around call starts in its generated ranges. Text outside of the ranges was
+     * plain text of the previous round, so it has no macro calls; a region ends after the closing brackets of its calls,
+     * so it has the same parse alone as within the whole result. Regions with calls of unregistered macros only are
+     * evaluated too, as the whole result would be.
+     *
+     * @return the round or null if the whole result has to be evaluated
+     */
+    @Nullable
+    private <T extends AbstractContext<T>> Round<T> evaluateRegions(@Nonnull String result,
+                                                                    @Nonnull ResultLayout layout,
+                                                                    @Nonnull T context) {
+        int[] windows = new int[layout.getRangesCount() * 2];
+        int windowsCount = 0;
+        for (int i = 0; i < layout.getRangesCount(); i++) {
+            int from = MacrosRegions.windowStart(result, layout.getRangeStart(i));
+            int to = MacrosRegions.windowEnd(result, layout.getRangeEnd(i));
+            if (!MacrosRegions.containsMacroStart(result, from, to)) {
+                continue;
+            }
+            if (windowsCount > 0 && from <= windows[windowsCount - 1]) {
+                windows[windowsCount - 2] = Math.min(from, windows[windowsCount - 2]);
+                windows[windowsCount - 1] = Math.max(to, windows[windowsCount - 1]);
+            } else {
+                windows[windowsCount++] = from;
+                windows[windowsCount++] = to;
+            }
+        }
+        if (windowsCount == 0) {
+            return new Round<>(result, null, context);
+        }
+        int lastClose = layout.getLastClose();
+        int[] regions = MacrosRegions.regions(result, windows, windowsCount, lastClose);
+        if (regions == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(result.length());
+        ResultLayout newLayout = new ResultLayout();
+        boolean layoutKnown = true;
+        boolean changed = false;
+        int copied = 0;
+        for (int i = 0; i < regions.length; i += 2) {
+            int from = regions[i];
+            int end = regions[i + 1];
+            appendCopied(builder, newLayout, result, copied, from, lastClose);
+            copied = end;
+            String region = result.substring(from, end);
+            if (lastClose >= from && lastClose < end) {
+                newLayout.addClosingBracket(builder.length() - 1);
+            }
+            context = oneTimeEvaluate(region, context.reset());
+            if (context == null) {
+                return null;
+            }
+            String regionResult = context.getResultOnEvaluationEnd();
+            if (regionResult == null) {
+                return new Round<>(null, null, context);
+            }
+            ResultLayout regionLayout = getLayout(context, regionResult);
+            if (regionLayout == null) {
+                layoutKnown = false;
+            } else {
+                newLayout.addAll(regionLayout, builder.length());
+            }
+            changed = changed || !regionResult.equals(region);
+            builder.append(regionResult);
+        }
+        if (!changed) {
+            return new Round<>(result, null, context);
+        }
+        appendCopied(builder, newLayout, result, copied, result.length(), lastClose);
+        newLayout.setLength(builder.length());
+        return new Round<>(builder.toString(), layoutKnown ? newLayout : null, context);
+    }
+
+    private static void appendCopied(@Nonnull StringBuilder builder, @Nonnull ResultLayout layout,
+                                     @Nonnull String result, int from, int to, int lastClose) {
+        if (lastClose >= from && lastClose < to) {
+            layout.addClosingBracket(builder.length() + lastClose - from);
+        }
+        builder.append(result, from, to);
+    }
+
+    @Nullable
+    private static ResultLayout getLayout(@Nonnull AbstractContext<?> context, @Nonnull String result) {
+        ResultLayout layout = context.getResultLayoutOnEvaluationEnd();
+        return layout == null || layout.getLength() != result.length() ? null : layout;
+    }
+
+    /**
+     * Evaluate a stream into a sink. Text outside of macro calls is written as it is read; a call is buffered with
+     * all text it can span and evaluated like {@link #evaluate(String, AbstractContext)} evaluates it. Results of
+     * a call are not combined with the text after it, and the input is expected to have a complete parse.
+     * Memory is not bounded by the read buffer: the text a call can span is held in memory, up to the max call
+     * length, so a call start followed by megabytes of unclosed brackets is buffered as a whole. A call which
+     * evaluates to null is written as it was read.
+     *
+     * @param input   input stream
+     * @param output  sink for the evaluated text
+     * @param context macros context
+     * @param <T>     context type
+     * @throws IOException if the input can not be read, the output can not be written or a call is not closed
+     *                     within the max call length
+     */
+    public <T extends AbstractContext<T>> void evaluate(@Nonnull Reader input, @Nonnull Appendable output,
+                                                        @Nonnull T context) throws IOException {
+        MacrosSegmenter segmenter = new MacrosSegmenter(input, maxCallLength);
+        while (segmenter.next()) {
+            if (segmenter.isCall()) {
+                String result = evaluate(segmenter.getText(), context);
+                output.append(result == null ? segmenter.getText() : result);
+            } else {
+                output.append(segmenter.getText());
+            }
+        }
+    }
+
+    /**
+     * Evaluate a batch of strings with one context. The batch shares the parser of the thread and the calculator
+     * state opened by {@link MacrosCalculator#openBatch()}, like script bindings.
+     *
+     * @param inputs  input strings
+     * @param context macros context, reset before each evaluation
+     * @param <T>     context type
+     * @return evaluated strings in the order of the inputs
+     */
+    @Nonnull
+    @Override
+    public <T extends AbstractContext<T>> List<String> evaluateAll(@Nonnull Collection<String> inputs,
+                                                                   @Nonnull T context) {
+        try (MacrosCalculator.Batch ignored = calculator.openBatch()) {
+            return Evaluator.super.evaluateAll(inputs, context);
+        }
+    }
+
+    /**
+     * Evaluate a batch of independent strings in parallel on virtual threads,
+     * see {@link #evaluateAllParallel(Collection, Supplier, int, Executor)}.
+     *
+     * @param inputs         input strings
+     * @param contextFactory creates a root context for each worker
+     * @param parallelism    maximal number of inputs evaluated at once
+     * @param <T>            context type
+     * @return results in the order of the inputs
+     */
+    @Nonnull
+    public <T extends AbstractContext<T>> List<EvaluationResult> evaluateAllParallel(
+            @Nonnull Collection<String> inputs, @Nonnull Supplier<T> contextFactory, int parallelism) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return evaluateAllParallel(inputs, contextFactory, parallelism, executor);
+        }
+    }
+
+    /**
+     * Evaluate a batch of independent strings in parallel. At most {@code parallelism} workers run on the executor,
+     * each takes the next input until none is left and has its own context and calculator batch, so no script engine
+     * state is used by two threads at once. Equal inputs are evaluated once; an input which fails, including a stack
+     * overflow or a failure of the context factory, gets its error as the result and the others are evaluated as
+     * usual with a new context.
+     *
+     * @param inputs         input strings
+     * @param contextFactory creates a root context for each worker
+     * @param parallelism    maximal number of inputs evaluated at once
+     * @param executor       executor to run the workers on
+     * @param <T>            context type
+     * @return results in the order of the inputs
+     */
+    @Nonnull
+    public <T extends AbstractContext<T>> List<EvaluationResult> evaluateAllParallel(
+            @Nonnull Collection<String> inputs, @Nonnull Supplier<T> contextFactory, int parallelism,
+            @Nonnull Executor executor) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive, but was " + parallelism);
+        }
+        Map<String, Integer> indexes = new LinkedHashMap<>();
+        int[] inputIndexes = new int[inputs.size()];
+        int position = 0;
+        for (String input : inputs) {
+            Integer index = indexes.putIfAbsent(input, indexes.size());
+            inputIndexes[position++] = index == null ? indexes.size() - 1 : index;
+        }
+        List<String> distinctInputs = new ArrayList<>(indexes.keySet());
+        EvaluationResult[] results = new EvaluationResult[distinctInputs.size()];
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(parallelism, results.length)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = CompletableFuture.runAsync(() -> {
+                try (MacrosCalculator.Batch ignored = calculator.openBatch()) {
+                    T context = null;
+                    for (int index = next.getAndIncrement(); index < results.length; index = next.getAndIncrement()) {
+                        try {
+                            if (context == null) {
+                                context = contextFactory.get();
+                            }
+                            results[index] = EvaluationResult.success(evaluate(distinctInputs.get(index), context));
+                        } catch (Throwable e) {
+                            rethrowIfFatal(e);
+                            results[index] = EvaluationResult.failure(e);
+                            context = null;
+                        }
+                    }
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(workers).join();
+        List<EvaluationResult> evaluated = new ArrayList<>(inputIndexes.length);
+        for (int index : inputIndexes) {
+            evaluated.add(results[index]);
+        }
+        return evaluated;
+    }
+
+    /**
+     * Errors of the JVM, besides a stack overflow of a deeply nested input, are not failures of an input.
+     */
+    private static void rethrowIfFatal(@Nonnull Throwable error) {
+        if (error instanceof VirtualMachineError && !(error instanceof StackOverflowError)) {
+            throw (VirtualMachineError) error;
+        }
+    }
+
     @Override
     public <T extends AbstractContext<T>> String evaluate(@Nonnull Macros macros, @Nullable List<String> args,
                                                           @Nonnull T context) {
         return calculator.calculate(macros, args, context);
     }
 
+    /**
+     * Pre-scan the input for a marker followed by a registered macro name and an opening bracket.
+     * Without such a call the parser would return the input unchanged, so parsing can be skipped.
+     *
+     * @param input input string
+     * @param from  start of the scanned range, inclusive
+     * @param to    end of the scanned range, exclusive
+     * @return true if the input may contain a call of a registered macro
+     */
+    private boolean containsMacroCall(@Nonnull String input, int from, int to) {
+        MacroRegistry registry = registry();
+        if (registry instanceof MacroRegistrySnapshot snapshot) {
+            return snapshot.getNameMatcher().containsMacroCall(input, from, to);
+        }
+        if (registry instanceof LayeredMacroRegistry layered && layered.isSnapshot()) {
+            return layered.containsMacroCall(input, from, to);
+        }
+        if (registry instanceof MacroRegistryImpl impl) {
+            return impl.getNameMatcher().containsMacroCall(input, from, to);
+        }
+        return containsAnyMacroCall(input, from, to);
+    }
+
+    /**
+     * Pre-scan for registries without a name matcher of their own, which may change their names at any time:
+     * every syntactically valid macro start is looked up in the registry.
+     */
+    private boolean containsAnyMacroCall(@Nonnull String input, int from, int to) {
+        MacroRegistry registry = registry();
+        for (int i = from; i < to; i++) {
+            char symbol = input.charAt(i);
+            if (symbol != '#' && symbol != '$') {
+                continue;
+            }
+            int end = i + 1;
+            while (end < to && MacrosNameMatcher.isMacroNameSymbol(input.charAt(end))) {
+                end++;
+            }
+            if (end > i + 1 && end < to && input.charAt(end) == '('
+                    && registry.getMacros(input, i + 1, end) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private <T extends AbstractContext<T>> T oneTimeEvaluate(@Nonnull String input, @Nonnull T context) {
-        return visitMacro(input, new MacrosVisitorImpl<>(registry, this, context));
+        return visitMacro(input, new MacrosVisitorImpl<>(registry(), this, context));
     }
 
     private <T> T visitMacro(@Nonnull String input, @Nonnull ParseTreeVisitor<T> visitor) {
-        CodePointCharStream inputStream = CharStreams.fromString(input);
-        if (macrosLexer == null) {
-            macrosLexer = new MacrosLexer(inputStream);
-            macrosLexer.removeErrorListeners();
-            macrosLexer.addErrorListener(ThrowingErrorListener.ERROR_LISTENER);
-            macrosParser = new MacrosParser(new CommonTokenStream(macrosLexer));
-        } else {
-            macrosLexer.setInputStream(inputStream);
-            macrosParser.setTokenStream(new CommonTokenStream(macrosLexer));
-            macrosParser.removeErrorListeners();
-            macrosParser.addErrorListener(ThrowingErrorListener.ERROR_LISTENER);
-        }
-        MacrosParser.BodyContext context = macrosParser.body();
-        return visitor.visit(context);
+        MacrosTemplate template = templateCache.get(input, parserBackend::parse);
+        return visitor.visit(template.getBody());
+    }
+
+    /**
+     * Select how the parser predicts alternatives. {@link PredictionStrategy#SLL_THEN_LL} is cheaper for long
+     * inputs like SQL and JSON bodies, statistics of its stages are available via {@link AntlrParserBackend}.
+     *
+     * @param predictionStrategy prediction strategy
+     */
+    public void setPredictionStrategy(@Nonnull PredictionStrategy predictionStrategy) {
+        parserBackend.setPredictionStrategy(predictionStrategy);
+    }
+
+    /**
+     * Select whether rounds after the first one evaluate only regions around the generated parts of the previous
+     * result, which is the default, or parse the whole result again.
+     *
+     * @param incrementalRounds true to evaluate only the regions
+     */
+    public void setIncrementalRounds(boolean incrementalRounds) {
+        this.incrementalRounds = incrementalRounds;
+    }
+
+    /**
+     * Set the max number of characters a call of a streamed input may span, see
+     * {@link #evaluate(Reader, Appendable, AbstractContext)}.
+     *
+     * @param maxCallLength max call length
+     */
+    public void setMaxCallLength(int maxCallLength) {
+        if (maxCallLength <= 0) {
+            throw new IllegalArgumentException("Max call length must be positive: " + maxCallLength);
+        }
+        this.maxCallLength = maxCallLength;
+    }
+
+    @Nonnull
+    public MacrosParserBackend getParserBackend() {
+        return parserBackend;
+    }
+
+    @Nonnull
+    public MacrosTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
+    /**
+     * Number of evaluations completed by the pre-scan, without parsing.
+     *
+     * @return count
+     */
+    public long getFastPathCount() {
+        return fastPathCount.sum();
+    }
+
+    /**
+     * Number of rounds which evaluated only regions around generated parts of the previous result.
+     *
+     * @return count
+     */
+    public long getIncrementalRoundsCount() {
+        return incrementalRoundsCount.sum();
+    }
+
+    private static final class Round<T> {
+        private final String result;
+        private final ResultLayout layout;
+        private final T context;
+
+        private Round(@Nullable String result, @Nullable ResultLayout layout, @Nonnull T context) {
+            this.result = result;
+            this.layout = layout;
+            this.context = context;
+        }
     }
 }
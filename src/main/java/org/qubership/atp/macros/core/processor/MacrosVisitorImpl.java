@@ -16,6 +16,7 @@
 
 package org.qubership.atp.macros.core.processor;
 
+import org.antlr.v4.runtime.Token;
 import org.qubership.atp.macros.core.model.Macros;
 import org.qubership.atp.macros.core.parser.antlr4.MacrosBaseVisitor;
 import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
@@ -69,8 +70,7 @@ public class MacrosVisitorImpl<T extends AbstractContext<T>> extends MacrosBaseV
 
     @Override
     public T visitMacrosStart(MacrosParser.MacrosStartContext ctx) {
-        String macroStart = ctx.MACROS().getText();
-        Macros macros = registry.getMacros(macroStart.substring(1, macroStart.length() - 1));
+        Macros macros = getMacros(ctx.MACROS().getSymbol());
         if (macros == null) {
             state.strategy.visitText(ctx, state);
             brackets.open();
@@ -81,6 +81,18 @@ public class MacrosVisitorImpl<T extends AbstractContext<T>> extends MacrosBaseV
         return state;
     }
 
+    /**
+     * Find the macros of a {@code #NAME(} token. When the token is read from a character sequence the name is
+     * looked up in place, otherwise in the token text.
+     */
+    private Macros getMacros(@Nonnull Token token) {
+        if (token.getInputStream() instanceof CharSequence input) {
+            return registry.getMacros(input, token.getStartIndex() + 1, token.getStopIndex());
+        }
+        String macroStart = token.getText();
+        return registry.getMacros(macroStart, 1, macroStart.length() - 1);
+    }
+
     @Override
     public T visitMacrosEnd(MacrosParser.MacrosEndContext ctx) {
         if (brackets.isGoingUpperOnClose()) {
@@ -0,0 +1,91 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.processor;
+
+import java.util.Arrays;
+
+import jakarta.annotation.Nonnull;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Layout of an evaluation result: ranges which were not copied from the evaluated text as is, like macro results,
+ * and the position of the last closing bracket. Only these ranges can start macro calls, so the next round parses
+ * them and the text around them again instead of the whole result.
+ */
+public class ResultLayout {
+
+    private int[] ranges = new int[8];
+    @Getter
+    private int rangesCount;
+    @Getter
+    @Setter
+    private int length;
+    @Getter
+    private int lastClose = -1;
+
+    /**
+     * Add a range, merging it with the last one when they touch.
+     *
+     * @param start start of the range, not less than the start of the last range
+     * @param end   end of the range
+     */
+    public void addRange(int start, int end) {
+        if (rangesCount > 0 && start <= ranges[rangesCount * 2 - 1]) {
+            ranges[rangesCount * 2 - 1] = Math.max(end, ranges[rangesCount * 2 - 1]);
+            return;
+        }
+        if (rangesCount * 2 == ranges.length) {
+            ranges = Arrays.copyOf(ranges, ranges.length * 2);
+        }
+        ranges[rangesCount * 2] = start;
+        ranges[rangesCount * 2 + 1] = end;
+        rangesCount++;
+    }
+
+    /**
+     * Add a closing bracket, only the last one is kept.
+     *
+     * @param position position of the closing bracket
+     */
+    public void addClosingBracket(int position) {
+        lastClose = Math.max(lastClose, position);
+    }
+
+    /**
+     * Add ranges and the closing bracket of a layout of a part of this result.
+     *
+     * @param layout layout of the part
+     * @param offset start of the part in this result
+     */
+    public void addAll(@Nonnull ResultLayout layout, int offset) {
+        for (int i = 0; i < layout.rangesCount; i++) {
+            addRange(layout.getRangeStart(i) + offset, layout.getRangeEnd(i) + offset);
+        }
+        if (layout.lastClose >= 0) {
+            addClosingBracket(layout.lastClose + offset);
+        }
+    }
+
+    public int getRangeStart(int index) {
+        return ranges[index * 2];
+    }
+
+    public int getRangeEnd(int index) {
+        return ranges[index * 2 + 1];
+    }
+}
@@ -17,10 +17,14 @@
 package org.qubership.atp.macros.core.processor;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosLexer;
 import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
 import org.springframework.util.ObjectUtils;
 
@@ -31,6 +35,9 @@ public class SimpleContext extends AbstractContext<SimpleContext> {
     protected List<String> args = new ArrayList<>();
     protected SimpleContext reducedChild = null;
     protected List<String> text = new ArrayList();
+    protected BitSet sourcePieces = new BitSet();
+    protected BitSet closingPieces = new BitSet();
+    private int sourceEnd;
     protected Macros macro;
     protected Evaluator evaluator;
 
@@ -54,18 +61,41 @@ public class SimpleContext extends AbstractContext<SimpleContext> {
     }
 
     protected String getArgument(MacrosParser.MacroArgContext arg) {
+        return getArgument(arg, new ResultLayout());
+    }
+
+    /**
+     * Join text of an argument with results of nested calls evaluated from their subtrees. The layout gets
+     * the results and the text which is not copied as is, so the argument is parsed again only around them.
+     */
+    private String getArgument(MacrosParser.MacroArgContext arg, ResultLayout layout) {
         StringBuilder builder = new StringBuilder();
         if (null != arg) {
             int childCount = arg.getChildCount();
             for (int i = 0; i < childCount; i++) {
                 ParseTree child = arg.getChild(i);
+                if (child instanceof MacrosParser.TextContext text && isPlain(text)) {
+                    if (text.getStart().getType() == MacrosLexer.CLOSE) {
+                        layout.addClosingBracket(builder.length());
+                    }
+                    builder.append(text.getText());
+                    continue;
+                }
+                String piece = "";
                 if (child instanceof MacrosParser.TextContext) {
-                    builder.append(child.getText());
-                } else if (child instanceof MacrosParser.MacrosContext) {
-                    builder.append(evaluator.evaluate(child.getText(), createRootContext()));
+                    piece = child.getText();
+                } else if (child instanceof MacrosParser.MacrosContext macros) {
+                    piece = String.valueOf(evaluator.evaluate(macros, createRootContext()));
+                }
+                int close = piece.lastIndexOf(')');
+                if (close >= 0) {
+                    layout.addClosingBracket(builder.length() + close);
                 }
+                layout.addRange(builder.length(), builder.length() + piece.length());
+                builder.append(piece);
             }
         }
+        layout.setLength(builder.length());
         return builder.toString();
     }
 
@@ -90,9 +120,10 @@ public class SimpleContext extends AbstractContext<SimpleContext> {
     }
 
     protected void pushArguments(MacrosParser.MacroParamContext arg) {
-        String result = getArgument(arg.macroArg());
+        ResultLayout layout = new ResultLayout();
+        String result = getArgument(arg.macroArg(), layout);
         if (!ObjectUtils.isEmpty(result)) {
-            this.args.add(evaluator.evaluate(result, createRootContext()));
+            this.args.add(evaluator.evaluate(result, layout, createRootContext()));
         }
     }
 
@@ -133,16 +164,19 @@ public class SimpleContext extends AbstractContext<SimpleContext> {
     @Override
     protected void pushText(@Nonnull MacrosParser.TextContext text) {
         this.text.add(text.getText());
+        markSourcePiece(text, text.getStart().getType() == MacrosLexer.CLOSE);
     }
 
     @Override
     protected void pushText(@Nonnull MacrosParser.QuoteContext text) {
         this.text.add(text.getText());
+        markSourcePiece(text, false);
     }
 
     @Override
     protected void pushText(@Nonnull MacrosParser.SlashContext text) {
         this.text.add(text.getText());
+        markSourcePiece(text, false);
     }
 
     @Override
@@ -153,6 +187,29 @@ public class SimpleContext extends AbstractContext<SimpleContext> {
     @Override
     protected void pushText(@Nonnull MacrosParser.MacrosEndContext text) {
         this.text.add(text.getText());
+        markSourcePiece(text, true);
+    }
+
+    /**
+     * Mark the last piece of the text as copied from the evaluated text as is. Pieces holding error nodes of the parser
+     * recovery or not following the previous copied piece in the evaluated text stay unknown.
+     */
+    private void markSourcePiece(@Nonnull ParserRuleContext piece, boolean closing) {
+        int index = text.size() - 1;
+        boolean follows = index == 0 || !sourcePieces.get(index - 1)
+                || piece.getStart().getStartIndex() == sourceEnd;
+        if (follows && isPlain(piece)) {
+            sourcePieces.set(index);
+            closingPieces.set(index, closing);
+            sourceEnd = piece.getStop().getStopIndex() + 1;
+        }
+    }
+
+    /**
+     * Whether a piece holds just its token, without error nodes of the parser recovery.
+     */
+    private static boolean isPlain(@Nonnull ParserRuleContext piece) {
+        return piece.getChildCount() == 1 && !(piece.getChild(0) instanceof ErrorNode);
     }
 
     @Nonnull
@@ -175,6 +232,27 @@ public class SimpleContext extends AbstractContext<SimpleContext> {
         return String.join("", text);
     }
 
+    @Override
+    public ResultLayout getResultLayoutOnEvaluationEnd() {
+        ResultLayout layout = new ResultLayout();
+        int position = 0;
+        for (int i = 0; i < text.size(); i++) {
+            String piece = String.valueOf(text.get(i));
+            if (!sourcePieces.get(i)) {
+                layout.addRange(position, position + piece.length());
+                int close = piece.lastIndexOf(')');
+                if (close >= 0) {
+                    layout.addClosingBracket(position + close);
+                }
+            } else if (closingPieces.get(i)) {
+                layout.addClosingBracket(position + piece.length() - 1);
+            }
+            position += piece.length();
+        }
+        layout.setLength(position);
+        return layout;
+    }
+
     protected void resetMacro() {
         macro = null;
         evaluator = null;
@@ -185,7 +263,13 @@ public class SimpleContext extends AbstractContext<SimpleContext> {
     @Override
     public SimpleContext reset() {
         resetMacro();
+        if (parent == null) {
+            //an evaluation which failed inside of a call leaves the root in the macro
+            strategy = MacrosVisitorState.OUTSIDE_MACRO;
+        }
         text.clear();
+        sourcePieces.clear();
+        closingPieces.clear();
         return this;
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.util.Set;
+
+import org.qubership.atp.macros.core.model.Macros;
+
+import com.google.common.collect.Sets;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Registry of a project over the global macros: a macros of the project layer wins over a global one with the same
+ * name. The global layer is shared by the registries of all projects, so a project registry only holds the macros
+ * of its project.
+ */
+public final class LayeredMacroRegistry implements MacroRegistry {
+    private final MacroRegistry global;
+    private final MacroRegistry project;
+
+    /**
+     * Constructor.
+     *
+     * @param global  shared registry of the global macros
+     * @param project registry of the macros of a project
+     */
+    public LayeredMacroRegistry(@Nonnull MacroRegistry global, @Nonnull MacroRegistry project) {
+        this.global = global;
+        this.project = project;
+    }
+
+    @Nullable
+    @Override
+    public Macros getMacros(@Nonnull String key) {
+        Macros macros = project.getMacros(key);
+        return macros == null ? global.getMacros(key) : macros;
+    }
+
+    @Nullable
+    @Override
+    public Macros getMacros(@Nonnull CharSequence input, int from, int to) {
+        Macros macros = project.getMacros(input, from, to);
+        return macros == null ? global.getMacros(input, from, to) : macros;
+    }
+
+    /**
+     * Names of both layers.
+     *
+     * @return view of the union of the names or null if a layer can not list its macros
+     */
+    @Nullable
+    @Override
+    public Set<String> getMacrosNames() {
+        Set<String> projectNames = project.getMacrosNames();
+        Set<String> globalNames = global.getMacrosNames();
+        return projectNames == null || globalNames == null ? null : Sets.union(projectNames, globalNames);
+    }
+
+    /**
+     * Registry of the current snapshots of both layers.
+     *
+     * @return this registry if both layers are snapshots already
+     */
+    @Nonnull
+    @Override
+    public LayeredMacroRegistry snapshot() {
+        MacroRegistry globalSnapshot = global.snapshot();
+        MacroRegistry projectSnapshot = project.snapshot();
+        if (globalSnapshot == global && projectSnapshot == project) {
+            return this;
+        }
+        return new LayeredMacroRegistry(globalSnapshot, projectSnapshot);
+    }
+
+    /**
+     * Check both layers are immutable snapshots, which have name matchers.
+     *
+     * @return true if {@link #containsMacroCall(CharSequence, int, int)} can be used
+     */
+    public boolean isSnapshot() {
+        return project instanceof MacroRegistrySnapshot && global instanceof MacroRegistrySnapshot;
+    }
+
+    /**
+     * Check the input contains a call of a macros of any layer, with the name matchers of the layers.
+     *
+     * @param input input string
+     * @param from  start of the scanned range, inclusive
+     * @param to    end of the scanned range, exclusive
+     * @return true if a call was found
+     * @throws IllegalStateException if a layer is not a snapshot
+     */
+    public boolean containsMacroCall(@Nonnull CharSequence input, int from, int to) {
+        if (!isSnapshot()) {
+            throw new IllegalStateException("Layers of the registry are not snapshots");
+        }
+        return ((MacroRegistrySnapshot) project).getNameMatcher().containsMacroCall(input, from, to)
+                || ((MacroRegistrySnapshot) global).getNameMatcher().containsMacroCall(input, from, to);
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.qubership.atp.macros.core.registry;
 
+import java.util.Set;
+
 import org.qubership.atp.macros.core.model.Macros;
 
 import jakarta.annotation.Nonnull;
@@ -25,4 +27,38 @@ public interface MacroRegistry {
 
     @Nullable
     Macros getMacros(@Nonnull String key);
+
+    /**
+     * Get a macros by its name given as a range of characters. Registries with a name index find it without
+     * allocating, others look it up by the name copied from the range.
+     *
+     * @param input input with the name
+     * @param from  start of the name, inclusive
+     * @param to    end of the name, exclusive
+     * @return macros or null if there is no such macros
+     */
+    @Nullable
+    default Macros getMacros(@Nonnull CharSequence input, int from, int to) {
+        return getMacros(input.subSequence(from, to).toString());
+    }
+
+    /**
+     * Names of all registered macros.
+     *
+     * @return names or null if the registry can not list its macros
+     */
+    @Nullable
+    default Set<String> getMacrosNames() {
+        return null;
+    }
+
+    /**
+     * Registry to use for one evaluation, so its nested calls find the same macros.
+     *
+     * @return this registry or its current immutable snapshot
+     */
+    @Nonnull
+    default MacroRegistry snapshot() {
+        return this;
+    }
 }
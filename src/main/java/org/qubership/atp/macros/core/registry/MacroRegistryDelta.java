@@ -0,0 +1,185 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import org.qubership.atp.macros.core.model.Macros;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+
+/**
+ * Changes between two versions of a set of macros. Macros are matched by uuid and a matched macros is changed when
+ * its modification date differs; macros without uuid are matched by name, and without modification date they are
+ * compared by value.
+ */
+@Getter
+public final class MacroRegistryDelta {
+
+    private static final MacroRegistryDelta EMPTY = new MacroRegistryDelta(List.of(), List.of(), List.of(), List.of());
+
+    /**
+     * Macros which are new.
+     */
+    private final List<Macros> added;
+    /**
+     * New versions of the changed macros.
+     */
+    private final List<Macros> changed;
+    /**
+     * Previous versions of the changed macros.
+     */
+    private final List<Macros> replaced;
+    /**
+     * Macros which are gone.
+     */
+    private final List<Macros> deleted;
+
+    private MacroRegistryDelta(List<Macros> added, List<Macros> changed, List<Macros> replaced,
+                               List<Macros> deleted) {
+        this.added = Collections.unmodifiableList(added);
+        this.changed = Collections.unmodifiableList(changed);
+        this.replaced = Collections.unmodifiableList(replaced);
+        this.deleted = Collections.unmodifiableList(deleted);
+    }
+
+    @Nonnull
+    public static MacroRegistryDelta empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compute the changes from the current macros to the new ones.
+     *
+     * @param current current macros
+     * @param updated new version of all the macros
+     * @return changes
+     */
+    @Nonnull
+    public static MacroRegistryDelta compute(@Nonnull Collection<Macros> current, @Nonnull Collection<Macros> updated) {
+        Map<Object, Macros> remaining = new HashMap<>();
+        for (Macros macros : current) {
+            remaining.put(key(macros), macros);
+        }
+        List<Macros> added = new ArrayList<>();
+        List<Macros> changed = new ArrayList<>();
+        List<Macros> replaced = new ArrayList<>();
+        for (Macros macros : updated) {
+            Macros previous = remaining.remove(key(macros));
+            if (previous == null) {
+                added.add(macros);
+            } else if (!isSameVersion(previous, macros.getModifiedWhen())
+                    || (previous.getModifiedWhen() == null && !previous.equals(macros))) {
+                changed.add(macros);
+                replaced.add(previous);
+            }
+        }
+        if (added.isEmpty() && changed.isEmpty() && remaining.isEmpty()) {
+            return EMPTY;
+        }
+        return new MacroRegistryDelta(added, changed, replaced, new ArrayList<>(remaining.values()));
+    }
+
+    /**
+     * Check the macros has the modification date, both being null too.
+     *
+     * @param macros       macros
+     * @param modifiedWhen modification date
+     * @return true if the dates are equal
+     */
+    public static boolean isSameVersion(@Nonnull Macros macros, @Nullable Date modifiedWhen) {
+        Date current = macros.getModifiedWhen();
+        return current == null ? modifiedWhen == null
+                : modifiedWhen != null && current.getTime() == modifiedWhen.getTime();
+    }
+
+    @Nonnull
+    private static Object key(@Nonnull Macros macros) {
+        UUID uuid = macros.getUuid();
+        return uuid == null ? Objects.toString(macros.getName()) : uuid;
+    }
+
+    /**
+     * Changes of the macros matching the filter.
+     *
+     * @param filter filter of macros
+     * @return changes
+     */
+    @Nonnull
+    public MacroRegistryDelta filter(@Nonnull Predicate<Macros> filter) {
+        List<Macros> filteredChanged = new ArrayList<>();
+        List<Macros> filteredReplaced = new ArrayList<>();
+        for (int i = 0; i < changed.size(); i++) {
+            if (filter.test(changed.get(i)) || filter.test(replaced.get(i))) {
+                filteredChanged.add(changed.get(i));
+                filteredReplaced.add(replaced.get(i));
+            }
+        }
+        List<Macros> filteredAdded = added.stream().filter(filter).toList();
+        List<Macros> filteredDeleted = deleted.stream().filter(filter).toList();
+        if (filteredAdded.isEmpty() && filteredChanged.isEmpty() && filteredDeleted.isEmpty()) {
+            return EMPTY;
+        }
+        return new MacroRegistryDelta(filteredAdded, filteredChanged, filteredReplaced, filteredDeleted);
+    }
+
+    /**
+     * Apply the changes to the macros.
+     *
+     * @param current macros the changes were computed from
+     * @return new version of the macros
+     */
+    @Nonnull
+    public List<Macros> applyTo(@Nonnull Collection<Macros> current) {
+        Map<Object, Macros> result = new HashMap<>();
+        for (Macros macros : current) {
+            result.put(key(macros), macros);
+        }
+        deleted.forEach(macros -> result.remove(key(macros)));
+        replaced.forEach(macros -> result.remove(key(macros)));
+        changed.forEach(macros -> result.put(key(macros), macros));
+        added.forEach(macros -> result.put(key(macros), macros));
+        return new ArrayList<>(result.values());
+    }
+
+    /**
+     * Previous versions of the changed macros and the deleted macros, whose cached scripts and results are stale.
+     *
+     * @return stale macros
+     */
+    @Nonnull
+    public List<Macros> getStale() {
+        List<Macros> stale = new ArrayList<>(replaced);
+        stale.addAll(deleted);
+        return stale;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && deleted.isEmpty();
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.model.MacrosParameter;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local binary file of a registry, so a service can start with the macros it had before without waiting for the
+ * macros service. The file is memory mapped on read and consists of a header (magic, format, version stamp, count),
+ * the macros and a CRC32 of them; a file which does not pass the checks is rejected as a whole.
+ */
+@Slf4j
+public final class MacroRegistryFile {
+
+    private static final int MAGIC = 0x4D524753;
+    private static final short FORMAT = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int NULL = -1;
+
+    private MacroRegistryFile() {
+    }
+
+    /**
+     * Open the registry stored in the file and check it against the remote macros in the background: when they
+     * differ, the registry is updated and the file is rewritten. When there is no valid file the remote macros are
+     * loaded at once and stored.
+     *
+     * @param file file of the registry
+     * @param remote loader of all macros from the macros service
+     * @param executor executor of the background check
+     * @return registry
+     */
+    @Nonnull
+    public static MacroRegistryHolder open(@Nonnull Path file, @Nonnull Supplier<? extends Collection<Macros>> remote,
+                                           @Nonnull Executor executor) {
+        return open(file, remote, executor, null);
+    }
+
+    /**
+     * Open the registry stored in the file as {@link #open(Path, Supplier, Executor)} does, checking the stored
+     * macros and every refresh of them with the validator.
+     *
+     * @param file file of the registry
+     * @param remote loader of all macros from the macros service
+     * @param executor executor of the background check
+     * @param validator check of the loaded macros, like
+     *                  {@link org.qubership.atp.macros.core.calculator.CompositeMacrosCalculator#checkEngines}
+     * @return registry
+     */
+    @Nonnull
+    public static MacroRegistryHolder open(@Nonnull Path file, @Nonnull Supplier<? extends Collection<Macros>> remote,
+                                           @Nonnull Executor executor, @Nullable MacroRegistryValidator validator) {
+        MacroRegistrySnapshot stored = null;
+        if (Files.exists(file)) {
+            try {
+                stored = read(file);
+            } catch (IOException e) {
+                log.warn("Registry file {} is not usable, macros are loaded from the macros service", file, e);
+            }
+        }
+        if (stored == null) {
+            Collection<Macros> macros = remote.get();
+            MacroRegistryHolder holder = new MacroRegistryHolder(new MacroRegistrySnapshot(macros), validator);
+            try {
+                write(file, macros);
+            } catch (IOException e) {
+                log.warn("Unable to store registry file {}", file, e);
+            }
+            return holder;
+        }
+        MacroRegistryHolder holder = new MacroRegistryHolder(stored, validator);
+        refresh(file, holder, remote, executor).whenComplete((updated, e) -> {
+            if (e != null) {
+                log.warn("Unable to check registry file {} against the macros service", file, e);
+            } else if (updated) {
+                log.info("Registry file {} was outdated and has been refreshed", file);
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Load the remote macros and, when their version stamp differs from the stamp of the macros the registry was last
+     * loaded from, update the registry and rewrite the file. A file which can not be written is logged, the registry
+     * is updated anyway.
+     *
+     * @param file file of the registry
+     * @param holder registry
+     * @param remote loader of all macros from the macros service
+     * @param executor executor of the check
+     * @return whether the registry has been updated
+     */
+    @Nonnull
+    public static CompletableFuture<Boolean> refresh(@Nonnull Path file, @Nonnull MacroRegistryHolder holder,
+                                                     @Nonnull Supplier<? extends Collection<Macros>> remote,
+                                                     @Nonnull Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Collection<Macros> macros = remote.get();
+            if (versionStamp(macros) == holder.snapshot().getVersionStamp()) {
+                return false;
+            }
+            holder.update(macros);
+            try {
+                write(file, macros);
+            } catch (IOException e) {
+                log.warn("Registry has been updated, but unable to store registry file {}", file, e);
+            }
+            return true;
+        }, executor);
+    }
+
+    /**
+     * Write the macros to the file, replacing it atomically.
+     *
+     * @param file file of the registry
+     * @param macros macros
+     * @throws IOException if the file can not be written
+     */
+    public static void write(@Nonnull Path file, @Nonnull Collection<Macros> macros) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        for (Macros macro : macros) {
+            writeMacros(out, macro);
+        }
+        out.flush();
+        CRC32 crc = new CRC32();
+        crc.update(body.toByteArray());
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream(HEADER_SIZE + body.size() + Long.BYTES);
+        DataOutputStream header = new DataOutputStream(content);
+        header.writeInt(MAGIC);
+        header.writeShort(FORMAT);
+        header.writeLong(versionStamp(macros));
+        header.writeInt(macros.size());
+        body.writeTo(header);
+        header.writeLong(crc.getValue());
+        header.flush();
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, content.toByteArray());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Read the registry from the memory mapped file.
+     *
+     * @param file file of the registry
+     * @return registry
+     * @throws IOException if the file can not be read or is corrupted
+     */
+    @Nonnull
+    public static MacroRegistrySnapshot read(@Nonnull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + Long.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Registry file " + file + " has invalid size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("File " + file + " is not a registry file");
+            }
+            short format = buffer.getShort();
+            if (format != FORMAT) {
+                throw new IOException("Registry file " + file + " has unsupported format " + format);
+            }
+            long stamp = buffer.getLong();
+            int count = buffer.getInt();
+            int crcPosition = (int) size - Long.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_SIZE, crcPosition - HEADER_SIZE));
+            if (crc.getValue() != buffer.getLong(crcPosition)) {
+                throw new IOException("Registry file " + file + " is corrupted: checksum mismatch");
+            }
+            List<Macros> macros = new ArrayList<>(Math.min(count, crcPosition));
+            ByteBuffer body = buffer.slice(HEADER_SIZE, crcPosition - HEADER_SIZE);
+            for (int i = 0; i < count; i++) {
+                macros.add(readMacros(body));
+            }
+            if (body.hasRemaining() || versionStamp(macros) != stamp) {
+                throw new IOException("Registry file " + file + " is corrupted: content does not match the header");
+            }
+            return new MacroRegistrySnapshot(macros);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Registry file " + file + " is corrupted", e);
+        }
+    }
+
+    /**
+     * Stamp of the version of the macros, equal for equal macros regardless of their order. It covers identifiers,
+     * content, parameters and modification dates, so a change of any macros changes the stamp.
+     *
+     * @param macros macros
+     * @return stamp
+     */
+    public static long versionStamp(@Nonnull Collection<Macros> macros) {
+        long stamp = macros.size();
+        for (Macros macro : macros) {
+            long hash = hash(0, macro.getUuid());
+            hash = hash(hash, macro.getProjectUuid());
+            hash = hash(hash, macro.getName());
+            hash = hash(hash, macro.getEngine());
+            hash = hash(hash, macro.getContent());
+            hash = hash(hash, macro.isTechnical());
+            hash = hash(hash, macro.getModifiedWhen() == null ? null : macro.getModifiedWhen().getTime());
+            if (macro.getParameters() != null) {
+                for (MacrosParameter parameter : macro.getParameters()) {
+                    hash = hash(hash, parameter.getName());
+                    hash = hash(hash, parameter.getDefaultValue());
+                    hash = hash(hash, parameter.getOptional());
+                }
+            }
+            stamp += mix(hash);
+        }
+        return stamp;
+    }
+
+    private static long hash(long hash, @Nullable Object value) {
+        return hash * 31 + (value == null ? 0 : value.hashCode());
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static void writeMacros(DataOutputStream out, Macros macro) throws IOException {
+        writeUuid(out, macro.getUuid());
+        writeString(out, macro.getName());
+        writeString(out, macro.getDescription());
+        writeUuid(out, macro.getSourceUuid());
+        writeUuid(out, macro.getCreatedBy());
+        writeDate(out, macro.getCreatedWhen());
+        writeUuid(out, macro.getModifiedBy());
+        writeDate(out, macro.getModifiedWhen());
+        writeUuid(out, macro.getProjectUuid());
+        writeString(out, macro.getEngine());
+        writeString(out, macro.getContent());
+        out.writeBoolean(macro.isTechnical());
+        List<MacrosParameter> parameters = macro.getParameters();
+        out.writeInt(parameters == null ? NULL : parameters.size());
+        if (parameters != null) {
+            for (MacrosParameter parameter : parameters) {
+                writeUuid(out, parameter.getUuid());
+                writeString(out, parameter.getName());
+                writeString(out, parameter.getDescription());
+                writeString(out, parameter.getDefaultValue());
+                out.writeByte(parameter.getOptional() == null ? NULL : parameter.getOptional() ? 1 : 0);
+            }
+        }
+    }
+
+    private static Macros readMacros(ByteBuffer in) {
+        Macros macro = new Macros();
+        macro.setUuid(readUuid(in));
+        macro.setName(readString(in));
+        macro.setDescription(readString(in));
+        macro.setSourceUuid(readUuid(in));
+        macro.setCreatedBy(readUuid(in));
+        macro.setCreatedWhen(readDate(in));
+        macro.setModifiedBy(readUuid(in));
+        macro.setModifiedWhen(readDate(in));
+        macro.setProjectUuid(readUuid(in));
+        macro.setEngine(readString(in));
+        macro.setContent(readString(in));
+        macro.setTechnical(in.get() != 0);
+        int count = in.getInt();
+        if (count == NULL) {
+            macro.setParameters(null);
+        } else {
+            if (count < 0 || count > in.remaining()) {
+                throw new IllegalArgumentException("Invalid count of parameters " + count);
+            }
+            List<MacrosParameter> parameters = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                MacrosParameter parameter = new MacrosParameter();
+                parameter.setUuid(readUuid(in));
+                parameter.setName(readString(in));
+                parameter.setDescription(readString(in));
+                parameter.setDefaultValue(readString(in));
+                byte optional = in.get();
+                parameter.setOptional(optional == NULL ? null : optional != 0);
+                parameters.add(parameter);
+            }
+            macro.setParameters(parameters);
+        }
+        return macro;
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nullable
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Invalid length of string " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeUuid(DataOutputStream out, @Nullable UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    @Nullable
+    private static UUID readUuid(ByteBuffer in) {
+        return in.get() == 0 ? null : new UUID(in.getLong(), in.getLong());
+    }
+
+    private static void writeDate(DataOutputStream out, @Nullable Date value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getTime());
+        }
+    }
+
+    @Nullable
+    private static Date readDate(ByteBuffer in) {
+        return in.get() == 0 ? null : new Date(in.getLong());
+    }
+}
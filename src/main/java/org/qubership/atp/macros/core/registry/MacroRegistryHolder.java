@@ -0,0 +1,128 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.qubership.atp.macros.core.exception.MacrosException;
+import org.qubership.atp.macros.core.model.Macros;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry which delegates to a snapshot swapped atomically on refresh. Lookups read the current snapshot without
+ * locking; evaluators pin the snapshot when an evaluation starts, so evaluations in flight keep the macros they
+ * started with and the next ones see the new snapshot. Updates are serialized, so a delta is applied to the snapshot
+ * left by the previous update and no change is lost. Each loaded snapshot is checked by the validator, if any; the
+ * macros it reports are logged and the snapshot is used anyway.
+ */
+@Slf4j
+public class MacroRegistryHolder implements MacroRegistry {
+    private final MacroRegistryValidator validator;
+    private volatile MacroRegistrySnapshot snapshot;
+
+    public MacroRegistryHolder(@Nonnull MacroRegistrySnapshot snapshot) {
+        this(snapshot, null);
+    }
+
+    public MacroRegistryHolder(@Nonnull Collection<Macros> macros) {
+        this(new MacroRegistrySnapshot(macros), null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param snapshot  initial macros
+     * @param validator check of the initial snapshot and of every next one, null for none
+     */
+    public MacroRegistryHolder(@Nonnull MacroRegistrySnapshot snapshot, @Nullable MacroRegistryValidator validator) {
+        this.validator = validator;
+        validate(snapshot);
+        this.snapshot = snapshot;
+    }
+
+    @Nullable
+    @Override
+    public Macros getMacros(@Nonnull String key) {
+        return snapshot.getMacros(key);
+    }
+
+    @Nullable
+    @Override
+    public Macros getMacros(@Nonnull CharSequence input, int from, int to) {
+        return snapshot.getMacros(input, from, to);
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> getMacrosNames() {
+        return snapshot.getMacrosNames();
+    }
+
+    @Nonnull
+    @Override
+    public MacroRegistrySnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Replace the macros with a new snapshot of them.
+     *
+     * @param macros all macros of the new version
+     * @return the new snapshot
+     */
+    @Nonnull
+    public synchronized MacroRegistrySnapshot update(@Nonnull Collection<Macros> macros) {
+        MacroRegistrySnapshot updated = new MacroRegistrySnapshot(macros);
+        swap(updated);
+        return updated;
+    }
+
+    /**
+     * Replace the macros with a new snapshot of them with the changes applied.
+     *
+     * @param delta changes computed from the macros of the current snapshot
+     * @return the new snapshot or the current one if there are no changes
+     */
+    @Nonnull
+    public synchronized MacroRegistrySnapshot apply(@Nonnull MacroRegistryDelta delta) {
+        if (delta.isEmpty()) {
+            return snapshot;
+        }
+        return update(delta.applyTo(snapshot.getAllMacros()));
+    }
+
+    public synchronized void swap(@Nonnull MacroRegistrySnapshot snapshot) {
+        validate(snapshot);
+        this.snapshot = snapshot;
+    }
+
+    private void validate(@Nonnull MacroRegistrySnapshot snapshot) {
+        if (validator == null) {
+            return;
+        }
+        try {
+            validator.validate(snapshot);
+        } catch (MacrosException e) {
+            log.warn("Registry of version {} is loaded with macros which can not be calculated: {}",
+                    snapshot.getVersion(), e.getMessage());
+        }
+    }
+}
@@ -16,10 +16,14 @@
 
 package org.qubership.atp.macros.core.registry;
 
-import java.io.Serial;
-import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.qubership.atp.macros.core.model.Macros;
 
@@ -28,12 +32,9 @@ import jakarta.annotation.Nullable;
 import lombok.Data;
 
 @Data
-public class MacroRegistryImpl implements MacroRegistry, Serializable {
+public class MacroRegistryImpl implements MacroRegistry {
 
-    @Serial
-    private static final long serialVersionUID = 4156422395580349521L;
-
-    private final HashMap<String, Macros> macros = new HashMap<>();
+    private final HashMap<String, Macros> macros = new MacrosMap();
 
     /**
      * Constructor.
@@ -49,9 +50,140 @@ public class MacroRegistryImpl implements MacroRegistry, Serializable {
     @Nullable
     @Override
     public Macros getMacros(@Nonnull String key) {
-        if (macros.containsKey(key)) {
-            return macros.get(key);
+        return macros.get(key);
+    }
+
+    @Nullable
+    @Override
+    public Macros getMacros(@Nonnull CharSequence input, int from, int to) {
+        MacrosNameMatcher matcher = getNameMatcher();
+        String name = matcher.find(input, from, to);
+        if (name == null) {
+            return matcher.hasSkippedNames() ? macros.get(input.subSequence(from, to).toString()) : null;
+        }
+        return macros.get(name);
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> getMacrosNames() {
+        return ((MacrosMap) macros).names;
+    }
+
+    /**
+     * Matcher of the current names of the registry, rebuilt on first use after the macros map was changed.
+     *
+     * @return matcher
+     */
+    @Nonnull
+    public MacrosNameMatcher getNameMatcher() {
+        return ((MacrosMap) macros).getNameMatcher();
+    }
+
+    /**
+     * Map of the macros by name which counts its changes, so the name matcher is rebuilt only when the names may
+     * have changed. The views of the map can change it too, so handing out a view counts as a change.
+     */
+    private static final class MacrosMap extends HashMap<String, Macros> {
+        private final Set<String> names = Collections.unmodifiableSet(super.keySet());
+        private volatile long changes;
+        private volatile NameIndex nameIndex;
+
+        private MacrosNameMatcher getNameMatcher() {
+            long current = changes;
+            NameIndex index = nameIndex;
+            if (index == null || index.changes != current) {
+                index = new NameIndex(current, new MacrosNameMatcher(names));
+                nameIndex = index;
+            }
+            return index.matcher;
+        }
+
+        private void change() {
+            changes++;
+        }
+
+        @Override
+        public Macros put(String key, Macros value) {
+            change();
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ? extends Macros> map) {
+            change();
+            super.putAll(map);
         }
-        return null;
+
+        @Override
+        public Macros putIfAbsent(String key, Macros value) {
+            change();
+            return super.putIfAbsent(key, value);
+        }
+
+        @Override
+        public Macros remove(Object key) {
+            change();
+            return super.remove(key);
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            change();
+            return super.remove(key, value);
+        }
+
+        @Override
+        public void clear() {
+            change();
+            super.clear();
+        }
+
+        @Override
+        public Macros computeIfAbsent(String key, Function<? super String, ? extends Macros> mapping) {
+            change();
+            return super.computeIfAbsent(key, mapping);
+        }
+
+        @Override
+        public Macros computeIfPresent(String key,
+                                       BiFunction<? super String, ? super Macros, ? extends Macros> remapping) {
+            change();
+            return super.computeIfPresent(key, remapping);
+        }
+
+        @Override
+        public Macros compute(String key, BiFunction<? super String, ? super Macros, ? extends Macros> remapping) {
+            change();
+            return super.compute(key, remapping);
+        }
+
+        @Override
+        public Macros merge(String key, Macros value,
+                            BiFunction<? super Macros, ? super Macros, ? extends Macros> remapping) {
+            change();
+            return super.merge(key, value, remapping);
+        }
+
+        @Override
+        public Set<String> keySet() {
+            change();
+            return super.keySet();
+        }
+
+        @Override
+        public Collection<Macros> values() {
+            change();
+            return super.values();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Macros>> entrySet() {
+            change();
+            return super.entrySet();
+        }
+    }
+
+    private record NameIndex(long changes, MacrosNameMatcher matcher) {
     }
 }
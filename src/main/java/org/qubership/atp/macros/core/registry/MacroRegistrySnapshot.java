@@ -0,0 +1,116 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.qubership.atp.macros.core.model.Macros;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Immutable registry of macros. Each created snapshot gets a version unique in the JVM, so caches of data derived
+ * from a registry can be keyed by it. The macros themselves are expected not to change once they are in a snapshot.
+ * Snapshots are persisted with {@link MacroRegistryFile}.
+ */
+public final class MacroRegistrySnapshot implements MacroRegistry {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final long versionStamp;
+    private final Map<String, Macros> macros;
+    private volatile MacrosNameMatcher nameMatcher;
+
+    /**
+     * Constructor, of macros with equal names the last one is registered.
+     *
+     * @param macros macros
+     */
+    public MacroRegistrySnapshot(@Nonnull Collection<Macros> macros) {
+        Map<String, Macros> byName = new HashMap<>();
+        for (Macros macro : macros) {
+            byName.put(macro.getName(), macro);
+        }
+        this.macros = Collections.unmodifiableMap(byName);
+        this.version = VERSIONS.incrementAndGet();
+        this.versionStamp = MacroRegistryFile.versionStamp(macros);
+    }
+
+    @Nullable
+    @Override
+    public Macros getMacros(@Nonnull String key) {
+        return macros.get(key);
+    }
+
+    @Nullable
+    @Override
+    public Macros getMacros(@Nonnull CharSequence input, int from, int to) {
+        MacrosNameMatcher matcher = getNameMatcher();
+        String name = matcher.find(input, from, to);
+        if (name == null) {
+            return matcher.hasSkippedNames() ? macros.get(input.subSequence(from, to).toString()) : null;
+        }
+        return macros.get(name);
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> getMacrosNames() {
+        return macros.keySet();
+    }
+
+    @Nonnull
+    public Collection<Macros> getAllMacros() {
+        return macros.values();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * {@link MacroRegistryFile#versionStamp(Collection) Version stamp} of the macros the snapshot was created from,
+     * including the ones replaced by a later macros with the same name.
+     *
+     * @return stamp
+     */
+    public long getVersionStamp() {
+        return versionStamp;
+    }
+
+    /**
+     * Matcher of the names of this snapshot, built on first use.
+     *
+     * @return matcher
+     */
+    @Nonnull
+    public MacrosNameMatcher getNameMatcher() {
+        MacrosNameMatcher matcher = nameMatcher;
+        if (matcher == null) {
+            matcher = new MacrosNameMatcher(macros.keySet());
+            nameMatcher = matcher;
+        }
+        return matcher;
+    }
+}
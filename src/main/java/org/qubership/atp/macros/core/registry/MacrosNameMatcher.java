@@ -0,0 +1,184 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.util.Collection;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Multi-pattern matcher over registered macro names. Finds {@code #NAME(} or {@code $NAME(} calls of
+ * registered macros in one pass without allocating, walking a trie of names from every macro marker, and looks up
+ * a registered name by a range of characters.
+ * Names which can not be lexed as a macro name (anything besides letters, digits and underscore) are ignored.
+ */
+public class MacrosNameMatcher {
+
+    private static final int ALPHABET_SIZE = 63;
+
+    private final Node root = new Node();
+    private int skippedCount;
+
+    /**
+     * Constructor.
+     *
+     * @param names names of registered macros
+     */
+    public MacrosNameMatcher(@Nonnull Collection<String> names) {
+        for (String name : names) {
+            if (!add(name)) {
+                skippedCount++;
+            }
+        }
+    }
+
+    /**
+     * Check the input contains a call of any registered macro.
+     *
+     * @param input input string
+     * @return true if at least one marker is followed by a registered name and an opening bracket
+     */
+    public boolean containsMacroCall(@Nonnull CharSequence input) {
+        return containsMacroCall(input, 0, input.length());
+    }
+
+    /**
+     * Check a range of the input contains a whole call start of any registered macro.
+     *
+     * @param input input string
+     * @param from  start of the range, inclusive
+     * @param to    end of the range, exclusive
+     * @return true if at least one marker in the range is followed by a registered name and an opening bracket
+     */
+    public boolean containsMacroCall(@Nonnull CharSequence input, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char symbol = input.charAt(i);
+            if ((symbol == '#' || symbol == '$') && matchesAt(input, i + 1, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the registered name equal to a range of the input, without allocating.
+     *
+     * @param input input
+     * @param from  start of the name, inclusive
+     * @param to    end of the name, exclusive
+     * @return registered name or null if the range is not a name which can be lexed
+     */
+    @Nullable
+    public String find(@Nonnull CharSequence input, int from, int to) {
+        Node node = root;
+        for (int i = from; i < to && node != null; i++) {
+            int index = indexOf(input.charAt(i));
+            if (index < 0 || node.children == null) {
+                return null;
+            }
+            node = node.children[index];
+        }
+        return node == null ? null : node.name;
+    }
+
+    /**
+     * Check some names were not added to the trie because they can not be lexed as a macro name.
+     *
+     * @return true if {@link #find(CharSequence, int, int)} does not find all names
+     */
+    public boolean hasSkippedNames() {
+        return skippedCount > 0;
+    }
+
+    private boolean matchesAt(@Nonnull CharSequence input, int from, int to) {
+        Node node = root;
+        for (int i = from; i < to; i++) {
+            char symbol = input.charAt(i);
+            int index = indexOf(symbol);
+            if (index < 0) {
+                return node.name != null && symbol == '(';
+            }
+            node = node.children == null ? null : node.children[index];
+            if (node == null) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean add(@Nullable String name) {
+        if (name == null || name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (indexOf(name.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        Node node = root;
+        for (int i = 0; i < name.length(); i++) {
+            int index = indexOf(name.charAt(i));
+            if (node.children == null) {
+                node.children = new Node[ALPHABET_SIZE];
+            }
+            if (node.children[index] == null) {
+                node.children[index] = new Node();
+            }
+            node = node.children[index];
+        }
+        node.name = name;
+        return true;
+    }
+
+    /**
+     * Check the symbol may be a part of a macro name, the same symbols as MACROS_NAME of the grammar.
+     *
+     * @param symbol symbol
+     * @return true for letters, digits and underscore
+     */
+    public static boolean isMacroNameSymbol(char symbol) {
+        return indexOf(symbol) >= 0;
+    }
+
+    /**
+     * Index of a macro name symbol in the trie alphabet.
+     *
+     * @param symbol symbol
+     * @return index or -1 if the symbol can not be a part of a macro name
+     */
+    static int indexOf(char symbol) {
+        if (symbol >= 'a' && symbol <= 'z') {
+            return symbol - 'a';
+        }
+        if (symbol >= 'A' && symbol <= 'Z') {
+            return symbol - 'A' + 26;
+        }
+        if (symbol >= '0' && symbol <= '9') {
+            return symbol - '0' + 52;
+        }
+        if (symbol == '_') {
+            return 62;
+        }
+        return -1;
+    }
+
+    private static class Node {
+        private Node[] children;
+        private String name;
+    }
+}
@@ -16,14 +16,21 @@
 
 package org.qubership.atp.macros.core.repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.stereotype.Repository;
 
 import org.qubership.atp.macros.core.client.MacrosFeignClient;
+import org.qubership.atp.macros.core.clients.api.dto.macros.MacrosDto;
 import org.qubership.atp.macros.core.converter.MacrosDtoConvertService;
 import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.registry.MacroRegistryDelta;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,6 +54,40 @@ public class MacrosRepository {
                 this.client.findAllByProject(projectId).getBody(), Macros.class);
     }
 
+    /**
+     * Get changes of the macros of a project include Global since the current version of them. Only macros with
+     * a new uuid or modification date are converted, the others are taken from the current version. A response
+     * without a body tells nothing about the macros, so it gives no changes rather than the deletion of all of them.
+     *
+     * @param projectId uuid.
+     * @param current   current macros.
+     * @return changes.
+     */
+    public MacroRegistryDelta findDeltaByProjectId(UUID projectId, Collection<Macros> current) {
+        log.debug("findDeltaByProjectId {}", projectId);
+        List<MacrosDto> dtos = this.client.findAllByProject(projectId).getBody();
+        if (dtos == null) {
+            log.warn("No macros received for project {}, the current macros are kept", projectId);
+            return MacroRegistryDelta.empty();
+        }
+        Map<UUID, Macros> currentByUuid = new HashMap<>();
+        for (Macros macros : current) {
+            if (macros.getUuid() != null) {
+                currentByUuid.put(macros.getUuid(), macros);
+            }
+        }
+        List<Macros> updated = new ArrayList<>(dtos.size());
+        for (MacrosDto dto : dtos) {
+            Macros macros = dto.getUuid() == null ? null : currentByUuid.get(dto.getUuid());
+            Date modifiedWhen = dto.getModifiedWhen() == null ? null : Date.from(dto.getModifiedWhen().toInstant());
+            if (macros == null || modifiedWhen == null || !MacroRegistryDelta.isSameVersion(macros, modifiedWhen)) {
+                macros = macrosDtoConvertService.convert(dto, Macros.class);
+            }
+            updated.add(macros);
+        }
+        return MacroRegistryDelta.compute(current, updated);
+    }
+
     /**
      * Evaluate macro.
      *
@@ -0,0 +1,44 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompiledScriptCacheTest {
+
+    @Test
+    public void get_brokenContent_compiledOncePerFactory() {
+        CompiledScriptCache cache = new CompiledScriptCache();
+        ScriptEnginePool pool = new ScriptEnginePool(new ScriptEngineManager(), 2);
+        pool.warmUp("javascript", 2);
+        String content = "function main() { return some_method(; }";
+
+        ScriptException first = Assertions.assertThrows(ScriptException.class,
+                () -> cache.get(pool.acquire("javascript"), content));
+        ScriptException second = Assertions.assertThrows(ScriptException.class,
+                () -> cache.get(pool.acquire("javascript"), content));
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, cache.failuresSize());
+        cache.invalidate(content);
+        Assertions.assertEquals(0, cache.failuresSize());
+    }
+}
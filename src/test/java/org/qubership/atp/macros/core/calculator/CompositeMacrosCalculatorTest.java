@@ -0,0 +1,62 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.List;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.exception.MacrosException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+import org.qubership.atp.macros.core.registry.MacroRegistryImpl;
+
+public class CompositeMacrosCalculatorTest {
+
+    private final CompositeMacrosCalculator calculator = CompositeMacrosCalculator.create(new ScriptEngineManager());
+
+    @Test
+    public void calculate_scriptAndProviderEngines_routedByEngineName() {
+        Assertions.assertEquals("script", calculator.calculate(
+                macros("SCRIPT", "javascript", "function main() { return 'script'; }"), null, new SimpleContext()));
+        Assertions.assertEquals("NASHORN", calculator.calculate(
+                macros("UPPER", "upper", null), List.of("nashorn"), new SimpleContext()));
+        Assertions.assertSame(calculator.getCalculator("javascript"), calculator.getCalculator("nashorn"));
+        Assertions.assertNull(calculator.calculate(macros("UNKNOWN", "cobol", ""), null, new SimpleContext()));
+    }
+
+    @Test
+    public void checkEngines_registryWithUnknownEngine_unknownEngineReported() throws MacrosException {
+        calculator.checkEngines(new MacroRegistryImpl(List.of(macros("SCRIPT", "js", ""), macros("UP", "upper", ""))));
+
+        MacrosException exception = Assertions.assertThrows(MacrosException.class,
+                () -> calculator.checkEngines(new MacroRegistryImpl(List.of(macros("SCRIPT", "js", ""),
+                        macros("OLD", "cobol", ""), macros("NONE", null, "")))));
+        Assertions.assertTrue(exception.getMessage().contains("cobol=[OLD]"), exception.getMessage());
+        Assertions.assertTrue(exception.getMessage().contains("null=[NONE]"), exception.getMessage());
+    }
+
+    private static Macros macros(String name, String engine, String content) {
+        Macros macros = new Macros();
+        macros.setName(name);
+        macros.setEngine(engine);
+        macros.setContent(content);
+        return macros;
+    }
+}
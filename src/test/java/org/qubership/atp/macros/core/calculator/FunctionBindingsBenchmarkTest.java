@@ -0,0 +1,106 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the calculation time of the built-in global macros whose scripts are evaluated once per engine with the
+ * time of evaluating them on every call. Times are logged, the test only checks that both give the same results.
+ */
+@Slf4j
+public class FunctionBindingsBenchmarkTest {
+
+    private static final int CALLS = 300;
+    private static final int WARM_UP_CALLS = 100;
+
+    private final List<List<String>> calls = List.of(
+            List.of("GET_DAY", "15.03.2024 10:20:30", "dd.MM.yyyy HH:mm:ss"),
+            List.of("GET_MONTH", "15.03.2024", "dd.MM.yyyy"),
+            List.of("SHIFT_DAY", "20", "15.03.2024", "dd.MM.yyyy"),
+            List.of("SHIFT_MONTH", "-13", "31.01.2024", "dd.MM.yyyy"),
+            List.of("CONTEXT", "key"),
+            List.of("TEST_RUN_NAME"),
+            List.of("TEST_CASE_NAME"),
+            List.of("ENV_VARIABLE", "name"),
+            List.of("CHARS", "0"));
+
+    @Test
+    public void calculate_globalMacrosEvaluatedOnceAndOnEveryCall_sameResultsAndTimesLogged() throws IOException {
+        File file = new File(Objects.requireNonNull(getClass().getClassLoader().getResource("globalMacros.json"))
+                .getFile());
+        List<Macros> macrosList = new ObjectMapper().readValue(Files.readAllBytes(file.toPath()),
+                new TypeReference<>() {
+                });
+        Map<String, Macros> macros = macrosList.stream().collect(Collectors.toMap(Macros::getName,
+                Function.identity()));
+        ScriptMacrosCalculator evaluatedOnce = new ScriptMacrosCalculator(new ScriptEngineManager());
+        ScriptMacrosCalculator evaluatedEveryCall = new ScriptMacrosCalculator(new ScriptEngineManager()) {
+            @Override
+            protected boolean isEvaluatedOnce(ScriptEngine engine, String content) {
+                return false;
+            }
+        };
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            for (List<String> call : calls) {
+                Assertions.assertEquals(calculate(evaluatedEveryCall, macros, call),
+                        calculate(evaluatedOnce, macros, call), call.get(0));
+            }
+        }
+        long everyCallNanos = run(evaluatedEveryCall, macros);
+        long onceNanos = run(evaluatedOnce, macros);
+        log.info("{} calls of {} global macros: evaluated on every call {} ms, evaluated once {} ms", CALLS,
+                calls.size(), TimeUnit.NANOSECONDS.toMillis(everyCallNanos), TimeUnit.NANOSECONDS.toMillis(onceNanos));
+    }
+
+    private long run(ScriptMacrosCalculator calculator, Map<String, Macros> macros) {
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            for (List<String> call : calls) {
+                Assertions.assertNotNull(calculate(calculator, macros, call));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String calculate(ScriptMacrosCalculator calculator, Map<String, Macros> macros,
+                                    List<String> call) {
+        SimpleContext context = new SimpleContext();
+        context.setContextParameters(Map.of("key", "value", "TEST_RUN_NAME", "run", "TEST_CASE_NAME", "case"));
+        return calculator.calculate(macros.get(call.get(0)), call.subList(1, call.size()), context);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.Set;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GraalJsMacrosCalculatorProviderTest {
+
+    @BeforeEach
+    public void checkEngine() {
+        Assumptions.assumeTrue(GraalJsMacrosCalculator.isAvailable(new ScriptEngineManager()),
+                "Graal.js engine is not on the class path");
+    }
+
+    @Test
+    public void getEngineNames_routingNotEnabled_onlyGraalJsClaimed() {
+        Assertions.assertEquals(Set.of(GraalJsMacrosCalculator.ENGINE_NAME),
+                new GraalJsMacrosCalculatorProvider().getEngineNames());
+        CompositeMacrosCalculator calculator = CompositeMacrosCalculator.create(new ScriptEngineManager());
+        Assertions.assertInstanceOf(GraalJsMacrosCalculator.class,
+                calculator.getCalculator(GraalJsMacrosCalculator.ENGINE_NAME));
+        Assertions.assertFalse(calculator.getCalculator("javascript") instanceof GraalJsMacrosCalculator);
+    }
+
+    @Test
+    public void getEngineNames_routingEnabled_javascriptClaimed() {
+        System.setProperty(GraalJsMacrosCalculatorProvider.ROUTE_JAVASCRIPT_PROPERTY, "true");
+        try {
+            Set<String> names = new GraalJsMacrosCalculatorProvider().getEngineNames();
+            Assertions.assertTrue(names.contains("javascript"), names.toString());
+            Assertions.assertTrue(names.contains(GraalJsMacrosCalculator.ENGINE_NAME), names.toString());
+        } finally {
+            System.clearProperty(GraalJsMacrosCalculatorProvider.ROUTE_JAVASCRIPT_PROPERTY);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.model.MacrosParameter;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the calculation time of the same macros with Nashorn and with Graal.js, on one thread and on several.
+ * Times are logged, the test only checks that both engines give the same results.
+ */
+@Slf4j
+public class GraalJsNashornBenchmarkTest {
+
+    private static final String NASHORN = "nashorn";
+    private static final int CALLS = 2_000;
+    private static final int WARM_UP_CALLS = 500;
+
+    private final List<Macros> macros = List.of(
+            macros("DECLARATIONS",
+                    "function main(value) { return value.split('').reverse().join('') + value.length; }"),
+            macros("STATEMENTS", "var prefix = 'p-'; function main(value) { return prefix + value.toUpperCase(); }"),
+            macros("HOST", "function main(value) { return new java.lang.StringBuilder(value).reverse().toString()"
+                    + " + contextMap.get('key'); }"));
+
+    @BeforeEach
+    public void checkEngine() {
+        Assumptions.assumeTrue(GraalJsMacrosCalculator.isAvailable(new ScriptEngineManager()),
+                "Graal.js engine is not on the class path");
+    }
+
+    @Test
+    public void calculate_sameMacrosWithBothEngines_sameResultsAndTimesLogged() throws Exception {
+        ScriptMacrosCalculator nashorn = new ScriptMacrosCalculator(new ScriptEngineManager()) {
+            @Override
+            protected String getEngineName(Macros macros) {
+                return NASHORN;
+            }
+        };
+        GraalJsMacrosCalculator graalJs = new GraalJsMacrosCalculator(new ScriptEngineManager());
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            for (Macros macro : macros) {
+                Assertions.assertEquals(nashorn.calculate(macro, List.of("v" + i), context()),
+                        graalJs.calculate(macro, List.of("v" + i), context()));
+            }
+        }
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int threadCount : new int[] {1, threads}) {
+            long nashornNanos = run(nashorn, threadCount);
+            long graalJsNanos = run(graalJs, threadCount);
+            log.info("{} calls of {} macros on {} threads: Nashorn {} ms, Graal.js {} ms", CALLS, macros.size(),
+                    threadCount, TimeUnit.NANOSECONDS.toMillis(nashornNanos),
+                    TimeUnit.NANOSECONDS.toMillis(graalJsNanos));
+        }
+    }
+
+    private long run(ScriptMacrosCalculator calculator, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    for (int i = 0; i < CALLS; i++) {
+                        for (Macros macro : macros) {
+                            Assertions.assertNotNull(calculator.calculate(macro, List.of("v" + i), context()));
+                        }
+                    }
+                    return null;
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SimpleContext context() {
+        SimpleContext context = new SimpleContext();
+        context.setContextParameters(Map.of("key", "value"));
+        return context;
+    }
+
+    private static Macros macros(String name, String content) {
+        MacrosParameter parameter = new MacrosParameter();
+        parameter.setName("value");
+        parameter.setOptional(false);
+        Macros macros = new Macros();
+        macros.setName(name);
+        macros.setEngine(NASHORN);
+        macros.setContent(content);
+        macros.setParameters(List.of(parameter));
+        return macros;
+    }
+}
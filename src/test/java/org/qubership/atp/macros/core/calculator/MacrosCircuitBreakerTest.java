@@ -0,0 +1,53 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.model.Macros;
+
+public class MacrosCircuitBreakerTest {
+
+    @Test
+    public void check_failuresReachThreshold_shortCircuitedForCoolDown() {
+        AtomicLong now = new AtomicLong();
+        MacrosCircuitBreaker breaker = new MacrosCircuitBreaker(2, Duration.ofSeconds(10), now::get);
+        Macros macros = new Macros();
+        macros.setName("BROKEN");
+        macros.setContent("function main() { throw 'broken'; }");
+
+        breaker.recordFailure(macros, "first error");
+        Assertions.assertNull(breaker.check(macros));
+        breaker.recordFailure(macros, "second error");
+        Assertions.assertEquals("second error", breaker.check(macros));
+        Assertions.assertEquals(1, breaker.getShortCircuitsCount());
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        Assertions.assertNull(breaker.check(macros));
+        breaker.recordFailure(macros, "third error");
+        Assertions.assertEquals("third error", breaker.check(macros));
+
+        macros.setContent("function main() { return 'fixed'; }");
+        Assertions.assertNull(breaker.check(macros));
+        macros.setContent("function main() { throw 'broken'; }");
+        breaker.recordSuccess(macros);
+        Assertions.assertNull(breaker.check(macros));
+    }
+}
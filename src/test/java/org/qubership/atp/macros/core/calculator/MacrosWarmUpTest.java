@@ -0,0 +1,136 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.exception.MacrosCompilationException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.AbstractContext;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+import org.qubership.atp.macros.core.registry.MacroRegistryImpl;
+
+public class MacrosWarmUpTest {
+
+    @Test
+    public void start_registryWithBrokenMacros_allWarmedAndFailuresReportedTogether() throws Exception {
+        ScriptMacrosCalculator calculator = new ScriptMacrosCalculator(
+                new ScriptEnginePool(new ScriptEngineManager(), 2));
+        Macros first = macros("FIRST", "function main() { return 'first'; }");
+        Macros second = macros("SECOND", "function main() { return 'second'; }");
+        MacroRegistryImpl registry = new MacroRegistryImpl(List.of(first, second,
+                macros("BROKEN", "function main() { return some_method(; }")));
+
+        MacrosWarmUp warmUp = MacrosWarmUp.start(registry, calculator, 2);
+        Map<String, MacrosCompilationException> failures = warmUp.getReady().get(30, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(Set.of("BROKEN"), failures.keySet());
+        Assertions.assertTrue(warmUp.isReady());
+        Assertions.assertEquals(3, warmUp.getTotalCount());
+        Assertions.assertEquals(2, calculator.getEnginePool().getCreationsCount());
+        long compilations = calculator.getCompiledScripts().getStats().missCount();
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertEquals("first", calculator.calculate(first, null, new SimpleContext()));
+            Assertions.assertEquals("second", calculator.calculate(second, null, new SimpleContext()));
+        }
+        Assertions.assertEquals(compilations, calculator.getCompiledScripts().getStats().missCount());
+    }
+
+    @Test
+    public void start_calculatorWarmUpFails_readyCompletesExceptionally() {
+        IllegalStateException error = new IllegalStateException("no engines");
+        MacrosCalculator calculator = new MacrosCalculator() {
+            @Override
+            public String calculate(Macros macros, List<String> arguments, AbstractContext context) {
+                return null;
+            }
+
+            @Override
+            public CompletableFuture<Map<String, MacrosCompilationException>> warmUp(Collection<Macros> macros,
+                                                                                    Executor executor) {
+                return CompletableFuture.failedFuture(error);
+            }
+        };
+        MacroRegistryImpl registry = new MacroRegistryImpl(List.of(macros("FIRST", "function main() {}")));
+
+        MacrosWarmUp warmUp = MacrosWarmUp.start(registry, calculator, 1);
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> warmUp.getReady().get(30, TimeUnit.SECONDS));
+
+        Assertions.assertSame(error, exception.getCause());
+        Assertions.assertFalse(warmUp.isReady());
+    }
+
+    @Test
+    public void start_longWarmUp_calculateIsNotBlocked() throws Exception {
+        String slowContent = "function main() { return 'slow'; }";
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch calculated = new CountDownLatch(1);
+        CompiledScriptCache compiledScripts = new CompiledScriptCache() {
+            @Override
+            public CompiledScript get(ScriptEngine engine, String content) throws ScriptException {
+                if (slowContent.equals(content) && compiling.getCount() > 0) {
+                    compiling.countDown();
+                    try {
+                        calculated.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.get(engine, content);
+            }
+        };
+        ScriptMacrosCalculator calculator = new ScriptMacrosCalculator(
+                new ScriptEnginePool(new ScriptEngineManager(), 1), compiledScripts);
+        Macros slow = macros("SLOW", slowContent);
+        Macros fast = macros("FAST", "function main() { return 'fast'; }");
+
+        MacrosWarmUp warmUp = MacrosWarmUp.start(new MacroRegistryImpl(List.of(slow)), calculator, 1);
+        Assertions.assertTrue(compiling.await(30, TimeUnit.SECONDS));
+        String result = CompletableFuture.supplyAsync(() -> calculator.calculate(fast, null, new SimpleContext()))
+                .get(30, TimeUnit.SECONDS);
+        calculated.countDown();
+
+        Assertions.assertEquals("fast", result);
+        Assertions.assertTrue(warmUp.getReady().get(30, TimeUnit.SECONDS).isEmpty());
+        Assertions.assertEquals(0, calculator.getEnginePool().getWaitsCount());
+        Assertions.assertEquals("slow", calculator.calculate(slow, null, new SimpleContext()));
+    }
+
+    private static Macros macros(String name, String content) {
+        Macros macros = new Macros();
+        macros.setEngine("javascript");
+        macros.setName(name);
+        macros.setContent(content);
+        return macros;
+    }
+}
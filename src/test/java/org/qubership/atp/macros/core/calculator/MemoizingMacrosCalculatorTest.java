@@ -0,0 +1,118 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+
+public class MemoizingMacrosCalculatorTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final MacrosCalculator counting = (macros, arguments, context) ->
+            macros.getName() + calls.incrementAndGet() + arguments;
+
+    @Test
+    public void calculate_deterministicMacros_calculatedOncePerArgumentsAndContextValues() {
+        MemoizingMacrosCalculator calculator = new MemoizingMacrosCalculator(counting,
+                MemoizingMacrosCalculator.GLOBAL_CONTEXT_MACROS);
+        Macros macros = macros("TEST_RUN_NAME", "function main() { return contextMap.get('TEST_RUN_NAME'); }");
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("TEST_RUN_NAME", "first");
+        parameters.put("OTHER", "any");
+        SimpleContext context = new SimpleContext();
+        context.setContextParameters(parameters);
+
+        Assertions.assertEquals("TEST_RUN_NAME1[]", calculator.calculate(macros, List.of(), context));
+        parameters.put("OTHER", "changed");
+        Assertions.assertEquals("TEST_RUN_NAME1[]", calculator.calculate(macros, null, context));
+        Assertions.assertEquals("TEST_RUN_NAME2[a]", calculator.calculate(macros, List.of("a"), context));
+        parameters.put("TEST_RUN_NAME", "second");
+        Assertions.assertEquals("TEST_RUN_NAME3[]", calculator.calculate(macros, List.of(), context));
+        macros.setContent("function main() { return 'changed'; }");
+        Assertions.assertEquals("TEST_RUN_NAME4[]", calculator.calculate(macros, List.of(), context));
+        Assertions.assertEquals(1, calculator.getStats().hitCount());
+    }
+
+    @Test
+    public void calculate_scriptFailsThenSucceeds_onlySuccessMemoized() {
+        MemoizingMacrosCalculator calculator = new MemoizingMacrosCalculator(
+                new ScriptMacrosCalculator(new ScriptEngineManager()), Map.of("CHECKED", Set.of()));
+        Macros macros = macros("CHECKED",
+                "function main() { if (contextMap.get('FAIL')) { throw 'broken'; } return 'ok'; }");
+        macros.setEngine("javascript");
+        SimpleContext failing = new SimpleContext();
+        failing.setContextParameters(Map.of("FAIL", true));
+
+        MacrosCalculator.Outcome failure = calculator.calculateOutcome(macros, null, failing);
+        Assertions.assertTrue(failure.failed());
+        Assertions.assertTrue(failure.result().startsWith("Error during evaluation of CHECKED macros"),
+                failure.result());
+        SimpleContext passing = new SimpleContext();
+        passing.setContextParameters(Map.of());
+        Assertions.assertEquals("ok", calculator.calculate(macros, null, passing));
+        Assertions.assertEquals("ok", calculator.calculate(macros, null, failing));
+        Assertions.assertEquals(1, calculator.getStats().hitCount());
+    }
+
+    @Test
+    public void calculate_notDeclaredMacros_calculatedEveryTime() {
+        MemoizingMacrosCalculator calculator = new MemoizingMacrosCalculator(counting, Map.of("TEST_RUN_ID", Set.of()));
+        Macros macros = macros("OTHER", "function main() { return 'other'; }");
+
+        Assertions.assertEquals("OTHER1null", calculator.calculate(macros, null, new SimpleContext()));
+        Assertions.assertEquals("OTHER2null", calculator.calculate(macros, null, new SimpleContext()));
+    }
+
+    @Test
+    public void invalidate_changedMacros_onlyItsResultsDropped() {
+        MemoizingMacrosCalculator calculator = new MemoizingMacrosCalculator(counting,
+                Map.of("TEST_RUN_ID", Set.of(), "TEST_RUN_KEY", Set.of()));
+        Macros changed = macros("TEST_RUN_ID", "function main() { return 'id'; }");
+        Macros kept = macros("TEST_RUN_KEY", "function main() { return 'key'; }");
+        calculator.calculate(changed, null, new SimpleContext());
+        calculator.calculate(kept, null, new SimpleContext());
+
+        calculator.invalidate(List.of(changed));
+
+        Assertions.assertEquals("TEST_RUN_ID3null", calculator.calculate(changed, null, new SimpleContext()));
+        Assertions.assertEquals("TEST_RUN_KEY2null", calculator.calculate(kept, null, new SimpleContext()));
+    }
+
+    @Test
+    public void constructor_volatileMacrosDeclared_rejected() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new MemoizingMacrosCalculator(counting, Map.of("RAND", Set.of())));
+    }
+
+    private static Macros macros(String name, String content) {
+        Macros macros = new Macros();
+        macros.setEngine("javascript");
+        macros.setName(name);
+        macros.setContent(content);
+        return macros;
+    }
+}
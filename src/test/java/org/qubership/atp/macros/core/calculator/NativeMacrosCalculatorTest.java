@@ -0,0 +1,177 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.exception.MacrosCompilationException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.AbstractContext;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nonnull;
+
+public class NativeMacrosCalculatorTest {
+
+    private Map<String, Macros> macros;
+    private ScriptMacrosCalculator scriptCalculator;
+    private NativeMacrosCalculator nativeCalculator;
+    private final AtomicInteger fallbackCalls = new AtomicInteger();
+
+    @BeforeEach
+    public void loadGlobalMacros() throws IOException {
+        File file = new File(Objects.requireNonNull(getClass().getClassLoader().getResource("globalMacros.json"))
+                .getFile());
+        List<Macros> macrosList = new ObjectMapper().readValue(Files.readAllBytes(file.toPath()),
+                new TypeReference<>() {
+                });
+        macros = macrosList.stream().collect(Collectors.toMap(Macros::getName, Function.identity()));
+        scriptCalculator = new ScriptMacrosCalculator(new ScriptEngineManager());
+        nativeCalculator = new NativeMacrosCalculator((macros, arguments, context) -> {
+            fallbackCalls.incrementAndGet();
+            return scriptCalculator.calculate(macros, arguments, context);
+        });
+    }
+
+    @Test
+    public void calculate_deterministicGlobalMacros_sameAsScriptsWithoutFallback() {
+        assertSame("DATE", "yyyy");
+        assertSame("DATE", "yyyy-MM-dd", "UTC");
+        assertSame("GET_DAY", "15.03.2024 10:20:30", "dd.MM.yyyy HH:mm:ss");
+        assertSame("GET_HOUR", "1700000000000", "millis", "UTC");
+        assertSame("GET_MIN", "15.03.2024 10:20:30", "dd.MM.yyyy HH:mm:ss", "Asia/Tokyo");
+        assertSame("GET_MONTH", "15.03.2024", "dd.MM.yyyy");
+        assertSame("GET_SEC", "15.03.2024 10:20:30", "dd.MM.yyyy HH:mm:ss");
+        assertSame("GET_YEAR", "1700000000000", "millis");
+        assertSame("SHIFT_DAY", "20", "15.03.2024", "dd.MM.yyyy");
+        assertSame("SHIFT_HOUR", "5", "15.03.2024 11:00", "dd.MM.yyyy hh:mm");
+        assertSame("SHIFT_MIN", "-90", "1700000000000", "millis");
+        assertSame("SHIFT_MONTH", "-13", "31.01.2024", "dd.MM.yyyy");
+        assertSame("SHIFT_SEC", "61", "15.03.2024 10:20:30", "dd.MM.yyyy HH:mm:ss");
+        assertSame("SHIFT_YEAR", "2", "1700000000000", "millis");
+        Assertions.assertEquals(0, fallbackCalls.get());
+    }
+
+    @Test
+    public void calculate_randomGlobalMacros_sameShapeAsScripts() {
+        assertBothMatch("[1-9]\\d{3}", "RAND", "4");
+        assertBothMatch("[3-5]", "RANDBETWEEN", "5", " 3");
+        assertBothMatch("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}", "UUID");
+        assertBothMatch("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}", "RAND_UUID");
+        assertBothMatch("[1-9]{2}[A-Z]-x", "RANDOM", "$$&-x");
+        assertBothMatch("[a-e]{5}", "CHARS", "5");
+        assertBothMatch("[a-z]{0,30}", "CHARS", "30");
+        Assertions.assertEquals(0, fallbackCalls.get());
+    }
+
+    @Test
+    public void calculate_unsupportedArguments_scriptResultViaFallback() {
+        assertSame("GET_DAY", "bad", "dd.MM.yyyy");
+        assertSame("SHIFT_DAY", "x", "15.03.2024", "dd.MM.yyyy");
+        assertSame("MOVE_DATE", "+1d", "yyyy");
+        assertSame("RAND", "abc");
+        assertSame("RANDBETWEEN", "0x10", "0x10");
+        assertSame("CHARS", "2.5x");
+        Assertions.assertEquals(6, fallbackCalls.get());
+    }
+
+    @Test
+    public void warmUp_globalAndProjectMacros_onlyMacrosWithoutJavaImplementationCompiled() throws Exception {
+        Macros projectDate = new Macros();
+        projectDate.setName("DATE");
+        projectDate.setProjectUuid(UUID.randomUUID());
+        List<Macros> warmed = new ArrayList<>();
+        NativeMacrosCalculator calculator = new NativeMacrosCalculator(new MacrosCalculator() {
+            @Override
+            public String calculate(@Nonnull Macros macros, List<String> arguments, @Nonnull AbstractContext context) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Nonnull
+            @Override
+            public CompletableFuture<Map<String, MacrosCompilationException>> warmUp(
+                    @Nonnull Collection<Macros> macros, @Nonnull Executor executor) {
+                warmed.addAll(macros);
+                return CompletableFuture.completedFuture(Map.of());
+            }
+        });
+
+        calculator.warmUp(new ArrayList<>(macros.values()), Runnable::run).get(10, TimeUnit.SECONDS);
+        calculator.warmUp(List.of(projectDate), Runnable::run).get(10, TimeUnit.SECONDS);
+
+        Assertions.assertTrue(warmed.contains(projectDate));
+        Assertions.assertTrue(warmed.stream().noneMatch(macro -> macro.getProjectUuid() == null
+                && NativeMacrosCalculator.isNative(macro.getName())));
+        Assertions.assertEquals(macros.values().stream().filter(macro -> !NativeMacrosCalculator.isNative(
+                macro.getName())).count() + 1, warmed.size());
+    }
+
+    @Test
+    public void calculate_projectMacrosWithGlobalName_calculatedByFallback() {
+        Macros projectDate = macros.get("UUID");
+        projectDate.setProjectUuid(java.util.UUID.randomUUID());
+        projectDate.setContent("function main() { return 'project'; }");
+
+        Assertions.assertEquals("project", nativeCalculator.calculate(projectDate, List.of(), new SimpleContext()));
+        Assertions.assertEquals(1, fallbackCalls.get());
+    }
+
+    private void assertSame(String name, String... arguments) {
+        Macros global = macros.get(name);
+        Assertions.assertEquals(outcome(scriptCalculator, global, arguments),
+                outcome(nativeCalculator, global, arguments), name);
+    }
+
+    private static String outcome(MacrosCalculator calculator, Macros macros, String... arguments) {
+        try {
+            return calculator.calculate(macros, List.of(arguments), new SimpleContext());
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    private void assertBothMatch(String regex, String name, String... arguments) {
+        Macros global = macros.get(name);
+        for (int i = 0; i < 20; i++) {
+            String script = scriptCalculator.calculate(global, List.of(arguments), new SimpleContext());
+            String result = nativeCalculator.calculate(global, List.of(arguments), new SimpleContext());
+            Assertions.assertTrue(script.matches(regex), name + " script " + script);
+            Assertions.assertTrue(result.matches(regex), name + " native " + result);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ScriptDeclarationsTest {
+
+    private final ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "function main(a) { return a; }",
+            "function main(a) { var i, r = ''; for (i = 0; i < 3; i++) { r += a; } a = r; return a; }",
+            "function main(o) { var k, r = []; for (k in o) { r.push(k); } return r.join(); }",
+            "function main() { var f = function inner(n) { var x; x = n; return x; }; return f(1); }",
+            "function twice(v) { v *= 2; return v; } function main(a) { return twice(a); }",
+            "function main() { try { return 1; } catch (e) { e = null; return 2; } }"})
+    public void isDeclarationsOnly_functionsAssigningOwnVariables_true(String content) {
+        Assertions.assertTrue(ScriptDeclarations.isDeclarationsOnly(engine, content));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "var prefix = 'p'; function main() { return prefix; }",
+            "function main() { x = 1; return x; }",
+            "function main(d) { min = Math.pow(10, d); return min; }",
+            "function main() { main.calls++; return main.calls; }",
+            "function main() { var o = {}; o.a = 1; return o.a; }",
+            "function main() { function inner() { count += 1; } inner(); return 1; }",
+            "function main(o) { for (k in o) { return k; } }",
+            "function main() { delete Math.E; return 1; }"})
+    public void isDeclarationsOnly_topLevelStatementsOrSharedAssignments_false(String content) {
+        Assertions.assertFalse(ScriptDeclarations.isDeclarationsOnly(engine, content));
+    }
+}
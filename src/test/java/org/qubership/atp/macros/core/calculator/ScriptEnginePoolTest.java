@@ -0,0 +1,57 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ScriptEnginePoolTest {
+
+    @Test
+    public void acquire_releasedEngine_reusedWithoutCreation() {
+        ScriptEnginePool pool = new ScriptEnginePool(new ScriptEngineManager(), 2);
+        ScriptEngine engine = pool.acquire("javascript");
+        pool.release("javascript", engine);
+
+        Assertions.assertSame(engine, pool.acquire("javascript"));
+        Assertions.assertEquals(1, pool.getCreationsCount());
+        Assertions.assertNull(pool.acquire("unknown"));
+    }
+
+    @Test
+    public void acquire_poolExhausted_waitsForReleasedEngine() throws Exception {
+        ScriptEnginePool pool = new ScriptEnginePool(new ScriptEngineManager(), 1);
+        pool.warmUp("javascript", 5);
+        Assertions.assertEquals(1, pool.getCreationsCount());
+        ScriptEngine engine = pool.acquire("javascript");
+
+        CompletableFuture<ScriptEngine> waiting = CompletableFuture.supplyAsync(() -> pool.acquire("javascript"));
+        while (pool.getWaitsCount() == 0) {
+            Thread.onSpinWait();
+        }
+        pool.release("javascript", engine);
+
+        Assertions.assertSame(engine, waiting.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, pool.getCreationsCount());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+
+public class ScriptMacrosCalculatorTest {
+
+    @Test
+    public void calculate_runawayScripts_onlyRunawayMacrosFailFastUntilClosed() throws Exception {
+        ScriptMacrosCalculator calculator = new ScriptMacrosCalculator(
+                new ScriptEnginePool(new ScriptEngineManager(), 1));
+        MacrosCircuitBreaker breaker = new MacrosCircuitBreaker(1, Duration.ZERO);
+        calculator.setCircuitBreaker(breaker);
+        calculator.setMacrosTimeouts(new MacrosTimeouts(Duration.ofMillis(100),
+                Map.of("FAST", Duration.ofSeconds(30))));
+        String loop = "function main() { while (!java.lang.Thread.currentThread().isInterrupted()) {}"
+                + " return 'stop'; }";
+        Macros first = macros("LOOP1", loop);
+        Macros second = macros("LOOP2", loop);
+        Macros fast = macros("FAST", "function main() { return 'fast'; }");
+
+        Assertions.assertEquals("Error during evaluation of LOOP1 macros: execution time exceeded 100 ms",
+                calculator.calculate(first, null, new SimpleContext()));
+        Assertions.assertEquals("Error during evaluation of LOOP2 macros: execution time exceeded 100 ms",
+                calculator.calculate(second, null, new SimpleContext()));
+        Assertions.assertEquals("Error during evaluation of LOOP1 macros: its run which exceeded the time is still"
+                + " running", calculator.calculate(first, null, new SimpleContext()));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals("fast", calculator.calculate(fast, null, new SimpleContext()));
+        }
+        Assertions.assertEquals(2, calculator.getAbandonedRunsCount("javascript"));
+        Assertions.assertEquals(2, calculator.getTimeoutsCount());
+        Assertions.assertEquals(3, calculator.getEnginePool().getCreationsCount());
+
+        calculator.close();
+        for (int i = 0; i < 100 && calculator.getAbandonedRunsCount("javascript") > 0; i++) {
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(0, calculator.getAbandonedRunsCount("javascript"));
+    }
+
+    @Test
+    public void calculate_twoEngineNamesAtTheSameTime_noTimeouts() throws Exception {
+        ScriptMacrosCalculator calculator = new ScriptMacrosCalculator(
+                new ScriptEnginePool(new ScriptEngineManager(), 2));
+        calculator.setMacrosTimeouts(new MacrosTimeouts(Duration.ofSeconds(5), Map.of()));
+        List<Macros> macros = List.of(macros("FIRST", "function main() { return 'first'; }"),
+                macros("SECOND", "function main() { return 'second'; }"));
+        macros.get(1).setEngine("nashorn");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Macros macro = macros.get(t % 2);
+                tasks.add(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        Assertions.assertEquals(macro.getName().toLowerCase(),
+                                calculator.calculate(macro, null, new SimpleContext()));
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            calculator.close();
+        }
+        Assertions.assertEquals(0, calculator.getTimeoutsCount());
+        Assertions.assertEquals(4, calculator.getEnginePool().getCreationsCount());
+    }
+
+    @Test
+    public void calculate_functionsWritingGlobalsOrProperties_noStateCarriedOverCallsAndProjects() {
+        ScriptMacrosCalculator calculator = new ScriptMacrosCalculator(
+                new ScriptEnginePool(new ScriptEngineManager(), 1));
+        for (String content : List.of(
+                "function main() { seen = (typeof seen === 'undefined' ? 0 : seen) + 1; return String(seen); }",
+                "function main() { main.calls = (main.calls || 0) + 1; return String(main.calls); }",
+                "function count(state) { state.calls++; return state.calls; }"
+                        + " function main() { return String(count(Math.state = Math.state || {calls: 0})); }")) {
+            Macros first = macros("COUNTER", content);
+            first.setProjectUuid(UUID.randomUUID());
+            Macros second = macros("COUNTER", content);
+            second.setProjectUuid(UUID.randomUUID());
+
+            Assertions.assertEquals("1", calculator.calculate(first, null, new SimpleContext()), content);
+            Assertions.assertEquals("1", calculator.calculate(first, null, new SimpleContext()), content);
+            Assertions.assertEquals("1", calculator.calculate(second, null, new SimpleContext()), content);
+        }
+    }
+
+    private static Macros macros(String name, String content) {
+        Macros macros = new Macros();
+        macros.setEngine("javascript");
+        macros.setName(name);
+        macros.setContent(content);
+        return macros;
+    }
+}
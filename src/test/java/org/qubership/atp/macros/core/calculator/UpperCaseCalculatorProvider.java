@@ -0,0 +1,36 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.calculator;
+
+import java.util.Set;
+
+import jakarta.annotation.Nonnull;
+
+public class UpperCaseCalculatorProvider implements MacrosCalculatorProvider {
+
+    @Nonnull
+    @Override
+    public Set<String> getEngineNames() {
+        return Set.of("upper");
+    }
+
+    @Nonnull
+    @Override
+    public MacrosCalculator createCalculator() {
+        return (macros, arguments, context) -> arguments == null ? "" : String.join("", arguments).toUpperCase();
+    }
+}
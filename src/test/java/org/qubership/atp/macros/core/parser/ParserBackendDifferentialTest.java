@@ -0,0 +1,118 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.parser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.tree.Trees;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+
+/**
+ * Checks that the hand-written backend builds the same trees as ANTLR on the inputs of the processor tests
+ * and on random inputs made of the grammar tokens.
+ */
+public class ParserBackendDifferentialTest {
+
+    private static final List<String> RULE_NAMES = Arrays.asList(MacrosParser.ruleNames);
+    private static final String BROKEN_CALL = "#TEST_OPTIONAL('Test: ', 'a'";
+    private static final String[] FUZZ_PARTS = {"#M(", "$N(", "#X(", "(", ")", "))", ",", " , ", "\t,", "'", "''",
+            "\\", "\\n", "\\'", "a", "b c", "#", "$", "_1"};
+    private static final int FUZZ_INPUTS_COUNT = 5_000;
+
+    private final AntlrParserBackend antlrBackend = new AntlrParserBackend();
+    private final ScannerParserBackend scannerBackend = new ScannerParserBackend();
+
+    public static Stream<String> corpus() {
+        return Stream.of(
+                "#REF_DSL(InternationalRateCost.#REF_#REF_THIS(OriginCountry.Zone).#REF_THIS(DestinationCountry"
+                        + ".Zone))",
+                "#REF_DSL(InternationalRateCost.#REF_THIS(OriginCountry.Zone).#REF_THIS(DestinationCountry.Zone))",
+                "#REF_DSL(National Rates.#REF_THIS(Subscription.TariffName).#REF_THIS(UsageType))",
+                "#REF_DSL(#REF_THIS(OriginCountry.Zone))",
+                "#REF_THIS(OriginCountry.Zone)",
+                "#REF_DSL(Roaming SMS Rates.#REF_THIS(Account.AccountType).#REF_THIS(OriginCountry.Zone)"
+                        + ".#REF_THIS(DestinationCountry.Zone))",
+                "#just_a text #",
+                "#just_a text#REF_DSL(1.2.3)#",
+                "Click the UIElement (\"Button\"='Submit')#REF_DSL(1.2.3)#",
+                "Fill the following parameters: (\"Market\"='${Country market}')",
+                "(.//*[contains(@class, 'consent-text')])[last()] #UNKNOWN('a') $UUID",
+                "some(o.object_id=r7.object_id and r7.attr_id=9147412578213883528 /* Serviceability Data */ and "
+                        + "r7.reference=9153651356313208758 /* Magyar Telekom xPON 150 (60))",
+                "Bla Bla $UUID()",
+                "Bla Bla #UUID('')",
+                "Bla Bla #UUID('#UUID('a','b')','c')",
+                "Bla Bla #UUID('a','#UUID('b','c')')",
+                "#GET_MONTH('2019-01-25T12:01:41.515Z', 'yyyy-MM-dd\\'T\\'HH:mm:ss.SSS\\'Z\\'')",
+                "$UUID('1','abs', 'three')",
+                "#TEST_OPTIONAL('Test: ', 'Some value')",
+                "#RES_VARIABLE('sys2','conn.par1')",
+                "$DATA_SET_SERVICE_VALUE('Ben\\'s Cases.Top Offerings.Internet Dedicada.SLOs.Gestão Smart.MRC')",
+                "$RANDOM('$$$$$$$$$$')",
+                "insert into nc_testdata  (TC_ID, TC_NAME, OBJECT_ID, STATUS) values ('${TD.prefix}', "
+                        + "'$TEST_CASE_SHORT_NAME()', '[]', 'Available')",
+                "insert into nc_testdata '$TEST_CASE_SHORT_NAME()' some",
+                "$SHIFT_MONTH('-1', '2019-02-25T12:01:41.515Z',  'yyyy-MM-dd\\'T\\'HH:mm:ss.SSS\\'Z\\'')",
+                ",dfghdfghdfgh,#UUID(), Active #RANDBETWEEN('#RANDBETWEEN('#RANDBETWEEN('#RANDBETWEEN('5','7')',"
+                        + "'7')','7')','1')",
+                ",dfghdfghdfgh,#UUID(), Active #RANDBETWEEN(#RANDBETWEEN(#RANDBETWEEN(#RANDBETWEEN(5,7),7),7),1)",
+                "#TEST_OPTIONAL('Test: ', '#TEST_MANDATORY('a')')",
+                "Change separator in path \".\\JSON\\NewDocumentID.txt\" and store in local param \"path\"",
+                "#M(a,b,c)",
+                "#M(a)b)",
+                "#M(a , b)",
+                "#M(,)",
+                "#M(count(x), 'y')",
+                "#M(\\n\\t)",
+                BROKEN_CALL);
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    public void parse_ProcessorTestsInput_SameTreeAsAntlr(String input) {
+        Assertions.assertEquals(toStringTree(antlrBackend.parse(input)), toStringTree(scannerBackend.parse(input)));
+        Assertions.assertEquals(BROKEN_CALL.equals(input) ? 1 : 0, scannerBackend.getFallbackParsesCount());
+    }
+
+    @Test
+    public void parse_RandomInputs_SameTreesAsAntlr() {
+        Random random = new Random(42);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < FUZZ_INPUTS_COUNT; i++) {
+            input.setLength(0);
+            int partsCount = 1 + random.nextInt(12);
+            for (int part = 0; part < partsCount; part++) {
+                input.append(FUZZ_PARTS[random.nextInt(FUZZ_PARTS.length)]);
+            }
+            String text = input.toString();
+            Assertions.assertEquals(toStringTree(antlrBackend.parse(text)), toStringTree(scannerBackend.parse(text)),
+                    text);
+        }
+        Assertions.assertTrue(scannerBackend.getScannerParsesCount() > 0);
+    }
+
+    private static String toStringTree(MacrosParser.BodyContext body) {
+        return Trees.toStringTree(body, RULE_NAMES);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.calculator.MacrosCalculator;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.MacrosTemplateCache;
+import org.qubership.atp.macros.core.registry.MacroRegistryImpl;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class EvaluatorConcurrencyTest {
+
+    private static final int INPUTS_COUNT = 200;
+    private static final int ITERATIONS = 5;
+
+    private static final MacrosCalculator CALCULATOR = (macros, arguments, context) -> {
+        List<String> args = arguments == null ? new ArrayList<>() : arguments;
+        return switch (macros.getName()) {
+            case "UPPER" -> String.join("", args).toUpperCase();
+            case "WRAP" -> "[" + String.join("|", args) + "]";
+            case "REF" -> "#UPPER(" + String.join("", args) + ")";
+            default -> throw new IllegalStateException("Unexpected macro " + macros.getName());
+        };
+    };
+
+    private MacroRegistryImpl registry;
+    private List<String> inputs;
+    private List<String> expected;
+
+    @BeforeEach
+    public void prepareInputs() {
+        registry = new MacroRegistryImpl(List.of(macros("UPPER"), macros("WRAP"), macros("REF"), macros("FAIL")));
+        inputs = new ArrayList<>();
+        for (int i = 0; i < INPUTS_COUNT; i++) {
+            switch (i % 4) {
+                case 0 -> inputs.add("{\"id\": \"" + i + "\", \"name\": \"#UPPER(name" + i + ")\"}");
+                case 1 -> inputs.add("#WRAP(#UPPER(v" + i + "), '#WRAP(#REF(w" + i + "),x)', z)");
+                case 2 -> inputs.add("select * from t where id = " + i + " and (a = 1)");
+                default -> inputs.add("$REF(#REF(r" + i + ")) and #WRAP('" + i + "')");
+            }
+        }
+        EvaluatorImpl singleThreaded = new EvaluatorImpl(registry, CALCULATOR);
+        expected = new ArrayList<>();
+        for (String input : inputs) {
+            expected.add(singleThreaded.evaluate(input, new SimpleContext()));
+        }
+    }
+
+    @Test
+    public void evaluate_sharedEvaluatorUsedFromManyThreads_allResultsAreCorrect() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        EvaluatorImpl shared = new EvaluatorImpl(registry, CALCULATOR, new MacrosTemplateCache(8_000));
+
+        run(shared, threads);
+        long singleThreadNanos = run(shared, 1);
+        long multiThreadNanos = run(shared, threads);
+
+        double speedup = (double) singleThreadNanos * threads / multiThreadNanos;
+        log.info("{} evaluations per thread: 1 thread {} ms, {} threads {} ms, throughput speedup {}",
+                INPUTS_COUNT * ITERATIONS, TimeUnit.NANOSECONDS.toMillis(singleThreadNanos), threads,
+                TimeUnit.NANOSECONDS.toMillis(multiThreadNanos), String.format("%.2f", speedup));
+    }
+
+    @Test
+    public void evaluateAllParallel_failingInputAndCappedParallelism_orderedResultsWithItemError() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        EvaluatorImpl evaluator = new EvaluatorImpl(registry, (macros, arguments, context) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                return CALCULATOR.calculate(macros, arguments, context);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        List<String> batch = new ArrayList<>(inputs);
+        batch.add(1, "#FAIL(x)");
+        batch.add(inputs.get(0));
+
+        List<EvaluationResult> results = evaluator.evaluateAllParallel(batch, SimpleContext::new, 3);
+
+        Assertions.assertEquals(batch.size(), results.size());
+        Assertions.assertTrue(results.get(1).isFailed());
+        Assertions.assertInstanceOf(IllegalStateException.class, results.get(1).getError());
+        List<String> evaluated = new ArrayList<>();
+        for (EvaluationResult result : results) {
+            evaluated.add(result.getResult());
+        }
+        List<String> expectedResults = new ArrayList<>(expected);
+        expectedResults.add(1, null);
+        expectedResults.add(expected.get(0));
+        Assertions.assertEquals(expectedResults, evaluated);
+        Assertions.assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void evaluateAllParallel_stackOverflowAndFailingContextFactory_itemFailuresOnly() {
+        EvaluatorImpl evaluator = new EvaluatorImpl(registry, (macros, arguments, context) -> {
+            if ("FAIL".equals(macros.getName())) {
+                throw new StackOverflowError();
+            }
+            return CALCULATOR.calculate(macros, arguments, context);
+        });
+        AtomicInteger contexts = new AtomicInteger();
+        List<String> batch = List.of(inputs.get(0), "#FAIL(x)", inputs.get(1), inputs.get(3));
+
+        List<EvaluationResult> results = evaluator.evaluateAllParallel(batch, () -> {
+            if (contexts.getAndIncrement() == 0) {
+                throw new IllegalStateException("No context");
+            }
+            return new SimpleContext();
+        }, 1);
+
+        Assertions.assertInstanceOf(IllegalStateException.class, results.get(0).getError());
+        Assertions.assertInstanceOf(StackOverflowError.class, results.get(1).getError());
+        Assertions.assertEquals(expected.get(1), results.get(2).getResult());
+        Assertions.assertEquals(expected.get(3), results.get(3).getResult());
+        Assertions.assertEquals(3, contexts.get());
+    }
+
+    /**
+     * Every thread evaluates all inputs, starting from its own offset, so threads hit the same templates
+     * at different moments and the small template cache is constantly evicted and refilled.
+     */
+    private long run(EvaluatorImpl evaluator, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * 7;
+                tasks.add(() -> {
+                    SimpleContext context = new SimpleContext();
+                    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                        for (int i = 0; i < INPUTS_COUNT; i++) {
+                            int index = (i + offset) % INPUTS_COUNT;
+                            Assertions.assertEquals(expected.get(index),
+                                    evaluator.evaluate(inputs.get(index), context));
+                        }
+                    }
+                    return null;
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Macros macros(String name) {
+        Macros macros = new Macros();
+        macros.setName(name);
+        return macros;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.processor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.calculator.CompositeMacrosCalculator;
+import org.qubership.atp.macros.core.calculator.MacrosCalculator;
+import org.qubership.atp.macros.core.exception.MacrosException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.AntlrParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosTemplateCache;
+import org.qubership.atp.macros.core.registry.MacroRegistry;
+import org.qubership.atp.macros.core.registry.MacroRegistryDelta;
+import org.qubership.atp.macros.core.registry.MacroRegistryHolder;
+import org.qubership.atp.macros.core.registry.MacroRegistrySnapshot;
+
+import jakarta.annotation.Nonnull;
+
+public class EvaluatorFactoryTest {
+
+    private static final UUID FIRST_PROJECT = UUID.randomUUID();
+    private static final UUID SECOND_PROJECT = UUID.randomUUID();
+
+    @Test
+    public void getEvaluator_projectOverlay_projectMacrosWinAndIdleProjectsEvicted() {
+        Macros globalGreet = macros(null, "GREET", "global");
+        Macros globalShared = macros(null, "SHARED", "shared");
+        AtomicInteger loads = new AtomicInteger();
+        EvaluatorFactory factory = new EvaluatorFactory(new MacroRegistrySnapshot(List.of(globalGreet, globalShared)),
+                projectId -> {
+                    loads.incrementAndGet();
+                    return projectId.equals(FIRST_PROJECT)
+                            ? List.of(globalGreet, globalShared, macros(FIRST_PROJECT, "GREET", "project"))
+                            : List.of(globalGreet, globalShared);
+                },
+                (macros, arguments, context) -> macros.getContent(), new MacrosTemplateCache(),
+                new AntlrParserBackend(), 1, Duration.ofMinutes(1));
+
+        Assertions.assertEquals("project shared",
+                factory.getEvaluator(FIRST_PROJECT).evaluate("#GREET() #SHARED()", new SimpleContext()));
+        Assertions.assertSame(factory.getEvaluator(FIRST_PROJECT), factory.getEvaluator(FIRST_PROJECT));
+        Assertions.assertEquals("global shared",
+                factory.getEvaluator(SECOND_PROJECT).evaluate("#GREET() #SHARED()", new SimpleContext()));
+        factory.getEvaluator(FIRST_PROJECT);
+
+        Assertions.assertEquals(3, loads.get());
+        Assertions.assertEquals(1, factory.size());
+    }
+
+    @Test
+    public void getEvaluator_compositeCalculator_projectMacrosEnginesChecked() {
+        List<Set<String>> checked = new ArrayList<>();
+        MacrosCalculator upper = (macros, arguments, context) -> macros.getContent().toUpperCase();
+        CompositeMacrosCalculator calculator = new CompositeMacrosCalculator(Map.of("upper", upper)) {
+            @Override
+            public void checkEngines(@Nonnull MacroRegistry registry) throws MacrosException {
+                checked.add(Set.copyOf(registry.getMacrosNames()));
+                super.checkEngines(registry);
+            }
+        };
+        Macros name = macros(FIRST_PROJECT, "NAME", "name");
+        name.setEngine("upper");
+        Macros old = macros(FIRST_PROJECT, "OLD", "old");
+        old.setEngine("cobol");
+        EvaluatorFactory factory = new EvaluatorFactory(new MacroRegistrySnapshot(List.of()),
+                projectId -> List.of(name, old), calculator);
+
+        Assertions.assertEquals("NAME", factory.getEvaluator(FIRST_PROJECT).evaluate("#NAME()", new SimpleContext()));
+        Assertions.assertEquals(List.of(Set.of("NAME", "OLD")), checked);
+    }
+
+    @Test
+    public void refresh_changedMacros_appliedAndOnlyStaleMacrosInvalidated() {
+        Macros greet = versioned(macros(null, "GREET", "hello"), UUID.randomUUID(), 1);
+        Macros name = versioned(macros(FIRST_PROJECT, "NAME", "first"), UUID.randomUUID(), 1);
+        Macros old = versioned(macros(FIRST_PROJECT, "OLD", "old"), UUID.randomUUID(), 1);
+        List<Macros> invalidated = new ArrayList<>();
+        MacrosCalculator calculator = new MacrosCalculator() {
+            @Override
+            public String calculate(@Nonnull Macros macros, List<String> arguments,
+                                    @Nonnull AbstractContext context) {
+                return macros.getContent();
+            }
+
+            @Override
+            public void invalidate(@Nonnull Collection<Macros> macros) {
+                invalidated.addAll(macros);
+            }
+        };
+        EvaluatorFactory factory = new EvaluatorFactory(new MacroRegistryHolder(List.of(greet)),
+                projectId -> List.of(greet, name, old), calculator);
+        EvaluatorImpl evaluator = factory.getEvaluator(FIRST_PROJECT);
+        Assertions.assertEquals("hello first old", evaluator.evaluate("#GREET() #NAME() #OLD()", new SimpleContext()));
+
+        Macros renamed = versioned(macros(FIRST_PROJECT, "NAME", "second"), name.getUuid(), 2);
+        Macros added = versioned(macros(FIRST_PROJECT, "NEW", "new"), UUID.randomUUID(), 1);
+        MacroRegistryDelta delta = factory.refresh(FIRST_PROJECT,
+                current -> MacroRegistryDelta.compute(current, List.of(greet, renamed, added)));
+
+        Assertions.assertEquals(List.of(added), delta.getAdded());
+        Assertions.assertEquals(List.of(renamed), delta.getChanged());
+        Assertions.assertEquals(List.of(old), delta.getDeleted());
+        Assertions.assertEquals(Set.of(name, old), Set.copyOf(invalidated));
+        Assertions.assertSame(evaluator, factory.getEvaluator(FIRST_PROJECT));
+        Assertions.assertEquals("hello second new #OLD()",
+                evaluator.evaluate("#GREET() #NAME() #NEW() #OLD()", new SimpleContext()));
+        Assertions.assertTrue(factory.refresh(FIRST_PROJECT,
+                current -> MacroRegistryDelta.compute(current, List.of(greet, renamed, added))).isEmpty());
+        Assertions.assertTrue(factory.refresh(SECOND_PROJECT, current -> Assertions.fail()).isEmpty());
+    }
+
+    private static Macros versioned(Macros macros, UUID uuid, long modifiedWhen) {
+        macros.setUuid(uuid);
+        macros.setModifiedWhen(new Date(modifiedWhen));
+        return macros;
+    }
+
+    private static Macros macros(UUID projectId, String name, String content) {
+        Macros macros = new Macros();
+        macros.setProjectUuid(projectId);
+        macros.setEngine("javascript");
+        macros.setName(name);
+        macros.setContent(content);
+        return macros;
+    }
+}
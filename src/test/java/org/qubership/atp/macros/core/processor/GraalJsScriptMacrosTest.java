@@ -0,0 +1,41 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.processor;
+
+import javax.script.ScriptEngineManager;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.qubership.atp.macros.core.calculator.GraalJsMacrosCalculator;
+import org.qubership.atp.macros.core.calculator.ScriptMacrosCalculator;
+
+/**
+ * Runs the script macros cases with the Graal.js engine, skipped when it is not on the class path.
+ */
+public class GraalJsScriptMacrosTest extends ScriptMacrosTest {
+
+    @BeforeEach
+    public void checkEngine() {
+        Assumptions.assumeTrue(GraalJsMacrosCalculator.isAvailable(new ScriptEngineManager()),
+                "Graal.js engine is not on the class path");
+    }
+
+    @Override
+    protected ScriptMacrosCalculator createCalculator() {
+        return new GraalJsMacrosCalculator(new ScriptEngineManager());
+    }
+}
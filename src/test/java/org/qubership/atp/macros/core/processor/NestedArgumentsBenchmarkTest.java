@@ -0,0 +1,166 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+package org.qubership.atp.macros.core.processor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.calculator.MacrosCalculator;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.AntlrParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosTemplateCache;
+import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
+import org.qubership.atp.macros.core.registry.MacroRegistryImpl;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares parses and time per evaluation of nested macro arguments evaluated from their parse subtrees with
+ * arguments turned back into text and parsed again, as {@link Evaluator} implementations without the subtree
+ * overloads do. The template cache is disabled, so every parse reaches the parser backend. Parses and times are
+ * logged, the test checks that results are the same and the subtree evaluation parses the input once.
+ */
+@Slf4j
+public class NestedArgumentsBenchmarkTest {
+
+    private static final int MAX_DEPTH = 6;
+    private static final int EVALUATIONS = 50;
+    private static final int WARM_UP_EVALUATIONS = 20;
+
+    private final AtomicInteger parses = new AtomicInteger();
+    private final EvaluatorImpl evaluator = new EvaluatorImpl(new MacroRegistryImpl(List.of(macros("SHIFT_DAY"),
+            macros("DATE"), macros("RANDBETWEEN"), macros("X"))), calculator(), new MacrosTemplateCache(0),
+            new CountingParserBackend(new AntlrParserBackend(), parses));
+
+    @Test
+    public void evaluate_nestedArguments_parsedOnceFromSubtreesAndTimesLogged() {
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            String input = "#SHIFT_DAY(#DATE('yyyy-MM-dd'), " + "#RANDBETWEEN(1, ".repeat(depth) + "#X()"
+                           + ")".repeat(depth) + ")";
+            for (int i = 0; i < WARM_UP_EVALUATIONS; i++) {
+                Assertions.assertEquals(evaluator.evaluate(input, new TextArgumentsContext()),
+                        evaluator.evaluate(input, new SimpleContext()), input);
+            }
+            int subtreeParses = parses(input, new SimpleContext());
+            int textParses = parses(input, new TextArgumentsContext());
+            long subtreeNanos = run(input, SimpleContext::new);
+            long textNanos = run(input, TextArgumentsContext::new);
+            log.info("Depth {}: parses per evaluation {} from text, {} from subtrees; {} evaluations {} ms from text,"
+                     + " {} ms from subtrees", depth, textParses, subtreeParses, EVALUATIONS,
+                    TimeUnit.NANOSECONDS.toMillis(textNanos), TimeUnit.NANOSECONDS.toMillis(subtreeNanos));
+            Assertions.assertEquals(1, subtreeParses, input);
+            Assertions.assertTrue(textParses > subtreeParses, input);
+        }
+    }
+
+    private int parses(String input, SimpleContext context) {
+        parses.set(0);
+        evaluator.evaluate(input, context);
+        return parses.get();
+    }
+
+    private long run(String input, Supplier<SimpleContext> contexts) {
+        long start = System.nanoTime();
+        for (int i = 0; i < EVALUATIONS; i++) {
+            Assertions.assertNotNull(evaluator.evaluate(input, contexts.get()));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static MacrosCalculator calculator() {
+        return (macros, arguments, context) -> switch (macros.getName()) {
+            case "SHIFT_DAY" -> arguments.get(0) + "+" + arguments.get(1);
+            case "DATE" -> "2024-03-15";
+            case "RANDBETWEEN" -> arguments.get(arguments.size() - 1);
+            default -> "1";
+        };
+    }
+
+    private static Macros macros(String name) {
+        Macros macros = new Macros();
+        macros.setEngine("javascript");
+        macros.setName(name);
+        macros.setContent("");
+        return macros;
+    }
+
+    /**
+     * Context which evaluates nested arguments through an evaluator with only the text overloads, so each nested
+     * call and each joined argument is parsed from its text again.
+     */
+    private static class TextArgumentsContext extends SimpleContext {
+
+        TextArgumentsContext() {
+            super();
+        }
+
+        TextArgumentsContext(@Nonnull SimpleContext parent, @Nonnull MacrosParser.MacrosStartContext macro,
+                             @Nonnull Macros macros, @Nonnull Evaluator evaluator) {
+            super(parent, macro, macros, evaluator);
+        }
+
+        @Override
+        protected void notifyMacroStarts(@Nonnull MacrosParser.MacrosStartContext macro, @Nonnull Macros macros,
+                                         @Nonnull Evaluator evaluator) {
+            super.notifyMacroStarts(macro, macros, evaluator instanceof TextEvaluator
+                    ? evaluator : new TextEvaluator(evaluator));
+        }
+
+        @Override
+        protected SimpleContext createRootContext() {
+            return new TextArgumentsContext();
+        }
+
+        @Nonnull
+        @Override
+        protected SimpleContext createChildContext(@Nonnull MacrosParser.MacrosStartContext ctx,
+                                                   @Nonnull Macros macros, @Nonnull Evaluator evaluator) {
+            return new TextArgumentsContext(this, ctx, macros, evaluator);
+        }
+    }
+
+    private record TextEvaluator(Evaluator delegate) implements Evaluator {
+
+        @Override
+        public <T extends AbstractContext<T>> String evaluate(@Nonnull String input, @Nonnull T context) {
+            return delegate.evaluate(input, context);
+        }
+
+        @Override
+        public <T extends AbstractContext<T>> String evaluate(@Nonnull Macros macros, @Nullable List<String> args,
+                                                              @Nonnull T context) {
+            return delegate.evaluate(macros, args, context);
+        }
+    }
+
+    private record CountingParserBackend(MacrosParserBackend delegate, AtomicInteger parses)
+            implements MacrosParserBackend {
+
+        @Nonnull
+        @Override
+        public MacrosParser.BodyContext parse(@Nonnull String input) {
+            parses.incrementAndGet();
+            return delegate.parse(input);
+        }
+    }
+}
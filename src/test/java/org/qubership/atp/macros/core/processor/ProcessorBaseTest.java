@@ -33,8 +33,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.qubership.atp.macros.core.calculator.MacrosCalculator;
 import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.AntlrParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosTemplateCache;
+import org.qubership.atp.macros.core.parser.ScannerParserBackend;
 import org.qubership.atp.macros.core.parser.antlr4.MacrosParser;
 import org.qubership.atp.macros.core.registry.MacroRegistry;
+import org.qubership.atp.macros.core.registry.MacroRegistryImpl;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
@@ -52,6 +57,12 @@ public class ProcessorBaseTest {
     private static final DataKey<String> MACRO_NAME = DataKey.create("test macro name");
 
     private static void validate(String inputMacro, String overallEr, EvaluationStep... steps) {
+        validate(new AntlrParserBackend(), inputMacro, overallEr, steps);
+        validate(new ScannerParserBackend(), inputMacro, overallEr, steps);
+    }
+
+    private static void validate(MacrosParserBackend parserBackend, String inputMacro, String overallEr,
+                                 EvaluationStep... steps) {
         Iterator<EvaluationStep> er = Arrays.asList(steps).iterator();
 
         Evaluator evaluator = new EvaluatorImpl(new TestMacroRegistry() {
@@ -67,7 +78,7 @@ public class ProcessorBaseTest {
                 EvaluationStep erItem = er.next();
                 return erItem.calculate((SimpleContext) item);
             }
-        });
+        }, new MacrosTemplateCache(), parserBackend);
         SimpleContext context = new TestContext();
         String result = evaluator.evaluate(inputMacro, context);
         if (er.hasNext()) {
@@ -79,6 +90,38 @@ public class ProcessorBaseTest {
         Assertions.assertEquals(overallEr, result);
     }
 
+    @Test
+    public void evaluate_liveRegistryNamesReplaced_newNamesEvaluated() {
+        MacroRegistryImpl registry = new MacroRegistryImpl(List.of(macros("A", "a")));
+        Evaluator evaluator = new EvaluatorImpl(registry, (macros, arguments, context) -> macros.getContent(),
+                new MacrosTemplateCache());
+        Assertions.assertEquals("x a", evaluator.evaluate("x #A()", new SimpleContext()));
+
+        registry.getMacros().remove("A");
+        registry.getMacros().put("B", macros("B", "b"));
+
+        Assertions.assertEquals("x b", evaluator.evaluate("x #B()", new SimpleContext()));
+        Assertions.assertEquals("x #A()", evaluator.evaluate("x #A()", new SimpleContext()));
+    }
+
+    @Test
+    public void evaluate_macroReturnsMacroAfterLongText_lastRoundEndsByGeneratedTextPreScan() {
+        String text = "select (a, b) from t where c = '#X'\n".repeat(100);
+        EvaluatorImpl evaluator = new EvaluatorImpl(new MacroRegistryImpl(List.of(macros("A", "#B()"),
+                macros("B", "b"))), (macros, arguments, context) -> macros.getContent(), new MacrosTemplateCache());
+
+        Assertions.assertEquals(text + "b" + text, evaluator.evaluate(text + "#A()" + text, new SimpleContext()));
+        Assertions.assertEquals(1, evaluator.getIncrementalRoundsCount());
+        Assertions.assertEquals(1, evaluator.getFastPathCount());
+    }
+
+    private static Macros macros(String name, String content) {
+        Macros macros = new Macros();
+        macros.setName(name);
+        macros.setContent(content);
+        return macros;
+    }
+
     @Test
     public void macroReturnsMacroPart_MacroUnionInsideAnotherMacro_MacroPartEvaluated() {
         String lookupMacro = "#REF_DSL(InternationalRateCost.#REF_#REF_THIS(OriginCountry.Zone).#REF_THIS"
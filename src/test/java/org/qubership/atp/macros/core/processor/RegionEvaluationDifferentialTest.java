@@ -0,0 +1,114 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.processor;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.qubership.atp.macros.core.calculator.MacrosCalculator;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.registry.MacroRegistryImpl;
+
+/**
+ * Checks that rounds evaluating only the regions around generated parts of the previous result give the same
+ * results as rounds parsing the whole result again, on macros which generate calls, brackets and quotes.
+ */
+public class RegionEvaluationDifferentialTest {
+
+    private static final String[] FUZZ_PARTS = {"#A(", "#B(", "#C()", "#D()", "$E(", "#F()", "#G()", "#Z(", "(",
+            ")", "))", ",", "'", "''", "\\'", "x", " y ", "#", "$"};
+    private static final int FUZZ_INPUTS_COUNT = 1_000;
+
+    private static final MacrosCalculator CALCULATOR = (macros, arguments, context) -> {
+        List<String> args = arguments == null ? List.of() : arguments;
+        String first = args.isEmpty() ? "" : args.get(0);
+        return switch (macros.getName()) {
+            case "A" -> "#B(" + first + ")";
+            case "B" -> "[" + String.join("|", args) + "]";
+            case "C" -> "c)";
+            case "D" -> "#A(d) #C() ";
+            case "E" -> first;
+            case "F" -> "$B(";
+            case "G" -> "'#B(g)'";
+            default -> throw new IllegalStateException(macros.getName());
+        };
+    };
+
+    private final EvaluatorImpl incremental = evaluator(true);
+    private final EvaluatorImpl reparsing = evaluator(false);
+
+    public static Stream<String> corpus() {
+        return Stream.of(
+                "#A(x)",
+                "text #D() text",
+                "#B(#A(1), #C())",
+                "#E('#A(e)') and #E(#D())",
+                "#F()x) #F()#C()",
+                "(#A(#F())) #G()",
+                "#E('#E(\\'#A(q)\\')')",
+                "#B(#C(), '#D()')) #Z(#A(z))",
+                "#A(#A(#A(deep)))");
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    public void evaluate_GeneratedCalls_SameResultAsFullReparse(String input) {
+        Assertions.assertEquals(outcome(reparsing, input), outcome(incremental, input));
+        Assertions.assertTrue(incremental.getIncrementalRoundsCount() > 0 || !input.contains("#A"));
+        Assertions.assertEquals(0, reparsing.getIncrementalRoundsCount());
+    }
+
+    @Test
+    public void evaluate_RandomInputs_SameResultsAsFullReparse() {
+        Random random = new Random(42);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < FUZZ_INPUTS_COUNT; i++) {
+            input.setLength(0);
+            int partsCount = 1 + random.nextInt(10);
+            for (int part = 0; part < partsCount; part++) {
+                input.append(FUZZ_PARTS[random.nextInt(FUZZ_PARTS.length)]);
+            }
+            String text = input.toString();
+            Assertions.assertEquals(outcome(reparsing, text), outcome(incremental, text), text);
+        }
+        Assertions.assertTrue(incremental.getIncrementalRoundsCount() > 0);
+    }
+
+    private static String outcome(EvaluatorImpl evaluator, String input) {
+        try {
+            return evaluator.evaluate(input, new SimpleContext());
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static EvaluatorImpl evaluator(boolean incrementalRounds) {
+        List<Macros> macros = Stream.of("A", "B", "C", "D", "E", "F", "G").map(name -> {
+            Macros macro = new Macros();
+            macro.setName(name);
+            return macro;
+        }).toList();
+        EvaluatorImpl evaluator = new EvaluatorImpl(new MacroRegistryImpl(macros), CALCULATOR);
+        evaluator.setIncrementalRounds(incrementalRounds);
+        return evaluator;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.processor;
+
+import org.qubership.atp.macros.core.parser.MacrosParserBackend;
+import org.qubership.atp.macros.core.parser.ScannerParserBackend;
+
+/**
+ * Runs the script macros cases with the hand-written parser backend.
+ */
+public class ScannerScriptMacrosTest extends ScriptMacrosTest {
+
+    @Override
+    protected MacrosParserBackend createParserBackend() {
+        return new ScannerParserBackend();
+    }
+}
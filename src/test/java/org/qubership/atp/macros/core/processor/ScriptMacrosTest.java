@@ -18,8 +18,12 @@ package org.qubership.atp.macros.core.processor;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,9 +34,14 @@ import javax.script.ScriptEngineManager;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.calculator.MacrosTimeouts;
 import org.qubership.atp.macros.core.calculator.ScriptMacrosCalculator;
 import org.qubership.atp.macros.core.exception.MacrosCompilationException;
 import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.AntlrParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosTemplateCache;
+import org.qubership.atp.macros.core.parser.PredictionStrategy;
 import org.qubership.atp.macros.core.registry.MacroRegistryImpl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -45,6 +54,7 @@ public class ScriptMacrosTest {
 
     EvaluatorImpl evaluator;
     ScriptMacrosCalculator calculator;
+    MacroRegistryImpl registry;
 
     @BeforeEach
     public void fillRegistry() throws IOException {
@@ -61,8 +71,17 @@ public class ScriptMacrosTest {
         List<Macros> fakeMacrosList = OBJECT_MAPPER.readValue(fakeMacrosString, new TypeReference<>() {
         });
         macrosList.addAll(fakeMacrosList);
-        calculator = new ScriptMacrosCalculator(new ScriptEngineManager());
-        evaluator = new EvaluatorImpl(new MacroRegistryImpl(macrosList), calculator);
+        calculator = createCalculator();
+        registry = new MacroRegistryImpl(macrosList);
+        evaluator = new EvaluatorImpl(registry, calculator, new MacrosTemplateCache(), createParserBackend());
+    }
+
+    protected ScriptMacrosCalculator createCalculator() {
+        return new ScriptMacrosCalculator(new ScriptEngineManager());
+    }
+
+    protected MacrosParserBackend createParserBackend() {
+        return new AntlrParserBackend();
     }
 
     private String evaluate(@Nonnull String macros, EvaluatorImpl evaluator,
@@ -127,6 +146,60 @@ public class ScriptMacrosTest {
         });
     }
 
+    @Test
+    public void testMacros_SameNameDifferentContent_EachContentCompiledOnce() {
+        Macros first = new Macros();
+        first.setEngine("javascript");
+        first.setName("SAME");
+        first.setContent("function main() { return 'first'; }");
+        Macros second = new Macros();
+        second.setEngine("javascript");
+        second.setName("SAME");
+        second.setContent("function main() { return 'second'; }");
+        SimpleContext context = new SimpleContext();
+
+        Assertions.assertEquals("first", calculator.calculate(first, null, context));
+        Assertions.assertEquals("second", calculator.calculate(second, null, context));
+        Assertions.assertEquals("first", calculator.calculate(first, null, context));
+        Assertions.assertEquals(2, calculator.getCompiledScripts().getStats().missCount());
+
+        calculator.getCompiledScripts().invalidate(first.getContent());
+        Assertions.assertEquals(1, calculator.getCompiledScripts().size());
+    }
+
+    @Test
+    public void testMacros_TopLevelState_ScriptEvaluatedOnEveryCall() {
+        Macros macros = new Macros();
+        macros.setEngine("javascript");
+        macros.setName("COUNTER");
+        macros.setContent("var count = 0; function main() { count++; return '' + count; }");
+        SimpleContext context = new SimpleContext();
+
+        Assertions.assertEquals("1", calculator.calculate(macros, null, context));
+        Assertions.assertEquals("1", calculator.calculate(macros, null, context));
+    }
+
+    @Test
+    public void testMacros_RunawayScript_TimedOutAndEngineReplaced() {
+        Macros loop = new Macros();
+        loop.setEngine("javascript");
+        loop.setName("LOOP");
+        loop.setContent("function main() { var end = Date.now() + 1500; while (Date.now() < end) {} return 'late'; }");
+        Macros fast = new Macros();
+        fast.setEngine("javascript");
+        fast.setName("FAST");
+        fast.setContent("function main() { return 'fast'; }");
+        calculator.setMacrosTimeouts(new MacrosTimeouts(Duration.ofSeconds(30),
+                Map.of("LOOP", Duration.ofMillis(100))));
+        SimpleContext context = new SimpleContext();
+
+        Assertions.assertEquals("Error during evaluation of LOOP macros: execution time exceeded 100 ms",
+                calculator.calculate(loop, null, context));
+        Assertions.assertEquals(1, calculator.getTimeoutsCount());
+        Assertions.assertEquals("fast", calculator.calculate(fast, null, context));
+        Assertions.assertEquals(2, calculator.getEnginePool().getCreationsCount());
+    }
+
     @Test
     public void testMacros_Env_VariableContextMacros_MustReturnFirstParameterThatExists() {
         Map<String, Object> testContext = new HashMap<>();
@@ -356,6 +429,122 @@ public class ScriptMacrosTest {
         Assertions.assertTrue(evaluate.matches(regex));
     }
 
+    @Test
+    public void testFastPath_NoRegisteredMacroInInput_InputReturnedWithoutParsing() {
+        String input = "(.//*[contains(@class, 'consent-text')])[last()] #UNKNOWN('a') $UUID";
+        String evaluate = evaluate(input, evaluator, new HashMap<>());
+        Assertions.assertEquals(input, evaluate);
+        Assertions.assertEquals(1, evaluator.getFastPathCount());
+        Assertions.assertEquals(0, evaluator.getTemplateCache().size());
+    }
+
+    @Test
+    public void testTemplateCache_SameInputEvaluatedTwice_ParsedOnce() {
+        Map<String, Object> context = new HashMap<>();
+        context.put("TEST_CASE_SHORT_NAME", "test");
+        String input = "insert into nc_testdata '$TEST_CASE_SHORT_NAME()' some";
+        evaluate(input, evaluator, context);
+        long misses = evaluator.getTemplateCache().getStats().missCount();
+        String evaluate = evaluate(input, evaluator, context);
+        Assertions.assertEquals("insert into nc_testdata 'test' some", evaluate);
+        Assertions.assertEquals(misses, evaluator.getTemplateCache().getStats().missCount());
+    }
+
+    @Test
+    public void testIncrementalRound_MacroReturnsMacroInLongText_OnlyResultRegionParsedAgain() {
+        Map<String, Object> context = new HashMap<>();
+        context.put("TEST_CASE_SHORT_NAME", "test");
+        String text = "select (a, b) from nc_testdata where (c = '#X(1)') and d in ('e', 'f')\n".repeat(200);
+        String evaluate = evaluate(text + "#TEST_OPTIONAL('$', 'TEST_CASE_SHORT_NAME()')" + text, evaluator,
+                context);
+        Assertions.assertEquals(text + "test" + text, evaluate);
+        Assertions.assertEquals(1, evaluator.getIncrementalRoundsCount());
+        long misses = evaluator.getTemplateCache().getStats().missCount();
+        Assertions.assertEquals("test", evaluate("$TEST_CASE_SHORT_NAME()", evaluator, context));
+        Assertions.assertEquals(misses, evaluator.getTemplateCache().getStats().missCount());
+    }
+
+    @Test
+    public void testNestedArguments_EvaluatedFromParseSubtree_InputParsedOnce() {
+        String evaluate = evaluate("#RANDBETWEEN(#RANDBETWEEN(1, #RANDBETWEEN(1, 1)), #RANDBETWEEN(#RANDBETWEEN"
+                                   + "(1, 1), 1))", evaluator, new HashMap<>());
+        Assertions.assertEquals("1", evaluate);
+        Assertions.assertEquals(1, evaluator.getTemplateCache().getStats().missCount());
+    }
+
+    @Test
+    public void testEvaluateAll_DuplicatedInputs_EvaluatedOnceInOrder() {
+        Map<String, Object> context = new HashMap<>();
+        context.put("TEST_CASE_SHORT_NAME", "test");
+        SimpleContext macroContext = new SimpleContext();
+        macroContext.setContextParameters(context);
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("url", "/cases/$TEST_CASE_SHORT_NAME()");
+        fields.put("id", "#RANDBETWEEN(1, 1000000000)");
+        fields.put("copy", "#RANDBETWEEN(1, 1000000000)");
+        fields.put("body", "plain");
+        Map<String, String> evaluated = evaluator.evaluateAll(fields, macroContext);
+        Assertions.assertEquals(List.of("url", "id", "copy", "body"), List.copyOf(evaluated.keySet()));
+        Assertions.assertEquals("/cases/test", evaluated.get("url"));
+        Assertions.assertEquals(evaluated.get("id"), evaluated.get("copy"));
+        Assertions.assertEquals("plain", evaluated.get("body"));
+        Assertions.assertEquals(List.of("/cases/test", "plain"),
+                evaluator.evaluateAll(List.of("/cases/$TEST_CASE_SHORT_NAME()", "plain"), macroContext));
+    }
+
+    @Test
+    public void testStreaming_LongJsonPayload_SameResultAsStringEvaluation() throws IOException {
+        Map<String, Object> context = new HashMap<>();
+        context.put("TEST_CASE_SHORT_NAME", "test");
+        String payload = "{\"name\": \"$TEST_CASE_SHORT_NAME()\", \"items\": [\"(a)\", \"b, c\"], \"path\": \"\\$N\"},\n"
+                .repeat(50);
+        SimpleContext macroContext = new SimpleContext();
+        macroContext.setContextParameters(context);
+        StringWriter output = new StringWriter();
+        evaluator.evaluate(new StringReader(payload), output, macroContext);
+        Assertions.assertEquals(evaluate(payload, evaluator, context), output.toString());
+        Assertions.assertTrue(output.toString().startsWith("{\"name\": \"test\""));
+    }
+
+    @Test
+    public void testStreaming_CallSpanningPastLimit_RejectedAndNullResultWrittenAsRead() throws IOException {
+        String payload = "{\"name\": \"$TEST_CASE_SHORT_NAME(x)\", \"items\": [" + "\"call(1)\", ".repeat(500) + "]}";
+        evaluator.setMaxCallLength(1024);
+        IOException error = Assertions.assertThrows(IOException.class,
+                () -> evaluator.evaluate(new StringReader(payload), new StringWriter(), new SimpleContext()));
+        Assertions.assertTrue(error.getMessage().contains("not closed within 1024 characters"), error.getMessage());
+
+        EvaluatorImpl nullEvaluator = new EvaluatorImpl(registry, calculator) {
+            @Override
+            public <T extends AbstractContext<T>> String evaluate(@Nonnull String input, @Nonnull T context) {
+                return null;
+            }
+        };
+        StringWriter output = new StringWriter();
+        nullEvaluator.evaluate(new StringReader("a #TEST_OPTIONAL('x') b"), output, new SimpleContext());
+        Assertions.assertEquals("a #TEST_OPTIONAL('x') b", output.toString());
+    }
+
+    @Test
+    public void testTwoStagePrediction_ValidAndBrokenInput_SameResultsAsFullLl() {
+        AntlrParserBackend parserBackend = new AntlrParserBackend(PredictionStrategy.SLL_THEN_LL);
+        EvaluatorImpl evaluator = new EvaluatorImpl(registry, calculator, new MacrosTemplateCache(), parserBackend);
+        Map<String, Object> context = new HashMap<>();
+        context.put("TEST_CASE_SHORT_NAME", "test");
+        String evaluate = evaluate("insert into nc_testdata  (TC_ID, TC_NAME) values ('${TD.prefix}', "
+                                   + "'$TEST_CASE_SHORT_NAME()')", evaluator, context);
+        Assertions.assertEquals("insert into nc_testdata  (TC_ID, TC_NAME) values ('${TD.prefix}', 'test')",
+                evaluate);
+        evaluate = evaluate("#TEST_OPTIONAL('Test: ', '#TEST_MANDATORY('a')')", evaluator, new HashMap<>());
+        Assertions.assertEquals("Test: aIm mandatory", evaluate);
+        Assertions.assertTrue(parserBackend.getSllParsesCount() > 0);
+        Assertions.assertEquals(0, parserBackend.getLlParsesCount());
+
+        evaluate = evaluate("#TEST_OPTIONAL('Test: ', 'a'", evaluator, new HashMap<>());
+        Assertions.assertEquals("Test: a", evaluate);
+        Assertions.assertEquals(1, parserBackend.getLlParsesCount());
+    }
+
     @Test
     public void testDifficultStringNonMacroWithSlash() {
         String evaluate =
@@ -0,0 +1,157 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.atp.macros.core.exception.MacrosException;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.model.MacrosParameter;
+
+public class MacroRegistryFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void read_writtenFile_sameMacros() throws IOException {
+        Path file = directory.resolve("registry.bin");
+        Macros macros = macros("DATE", "function main(format) { return format; }");
+        MacrosParameter parameter = new MacrosParameter();
+        parameter.setUuid(UUID.randomUUID());
+        parameter.setName("format");
+        parameter.setDefaultValue("dd.MM.yyyy é");
+        parameter.setOptional(true);
+        macros.getParameters().add(parameter);
+        Macros other = macros("UUID", "function main() { return 'x'; }");
+        other.setParameters(null);
+
+        MacroRegistryFile.write(file, List.of(macros, other));
+        MacroRegistrySnapshot snapshot = MacroRegistryFile.read(file);
+
+        Assertions.assertEquals(macros, snapshot.getMacros("DATE"));
+        Assertions.assertEquals(other, snapshot.getMacros("UUID"));
+        Assertions.assertEquals(MacroRegistryFile.versionStamp(List.of(other, macros)),
+                MacroRegistryFile.versionStamp(snapshot.getAllMacros()));
+    }
+
+    @Test
+    public void read_corruptedFile_rejected() throws IOException {
+        Path file = directory.resolve("registry.bin");
+        MacroRegistryFile.write(file, List.of(macros("DATE", "function main() { return 'date'; }")));
+        try (RandomAccessFile content = new RandomAccessFile(file.toFile(), "rw")) {
+            content.seek(content.length() / 2);
+            int value = content.read();
+            content.seek(content.length() / 2);
+            content.write(value ^ 0xFF);
+        }
+
+        Assertions.assertThrows(IOException.class, () -> MacroRegistryFile.read(file));
+    }
+
+    @Test
+    public void refresh_remoteMacrosChanged_registryAndFileUpdated() throws Exception {
+        Path file = directory.resolve("registry.bin");
+        Macros stored = macros("DATE", "function main() { return 'old'; }");
+        MacroRegistryFile.write(file, List.of(stored));
+        MacroRegistryHolder holder = new MacroRegistryHolder(MacroRegistryFile.read(file));
+        Macros changed = macros("DATE", "function main() { return 'new'; }");
+        changed.setUuid(stored.getUuid());
+
+        Assertions.assertFalse(MacroRegistryFile.refresh(file, holder, () -> List.of(stored), Runnable::run)
+                .get(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(MacroRegistryFile.refresh(file, holder, () -> List.of(changed), Runnable::run)
+                .get(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(changed.getContent(), holder.getMacros("DATE").getContent());
+        Assertions.assertEquals(changed, MacroRegistryFile.read(file).getMacros("DATE"));
+    }
+
+    @Test
+    public void refresh_projectMacrosOverridesGlobalOne_fileNotRewritten() throws Exception {
+        Path file = directory.resolve("registry.bin");
+        Macros global = macros("DATE", "function main() { return 'global'; }");
+        global.setProjectUuid(null);
+        List<Macros> remote = List.of(global, macros("DATE", "function main() { return 'project'; }"));
+        MacroRegistryHolder holder = MacroRegistryFile.open(file, () -> remote, Runnable::run);
+        FileTime written = Files.getLastModifiedTime(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(written.toMillis() - 60_000));
+
+        Assertions.assertFalse(MacroRegistryFile.refresh(file, holder, () -> remote, Runnable::run)
+                .get(10, TimeUnit.SECONDS));
+        MacroRegistryHolder reopened = MacroRegistryFile.open(file, () -> remote, Runnable::run);
+
+        Assertions.assertEquals(written.toMillis() - 60_000, Files.getLastModifiedTime(file).toMillis());
+        Assertions.assertEquals(holder.snapshot().getVersionStamp(), reopened.snapshot().getVersionStamp());
+    }
+
+    @Test
+    public void refresh_fileCanNotBeWritten_registryUpdated() throws Exception {
+        Path file = Files.createFile(directory.resolve("not-a-directory")).resolve("registry.bin");
+        MacroRegistryHolder holder = new MacroRegistryHolder(List.of(macros("DATE", "function main() {}")));
+        Macros changed = macros("DATE", "function main() { return 'new'; }");
+
+        Assertions.assertTrue(MacroRegistryFile.refresh(file, holder, () -> List.of(changed), Runnable::run)
+                .get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(changed, holder.getMacros("DATE"));
+    }
+
+    @Test
+    public void open_withValidator_storedAndRefreshedMacrosValidatedAndLoaded() {
+        Path file = directory.resolve("registry.bin");
+        List<Set<String>> validated = new ArrayList<>();
+        MacroRegistryValidator validator = registry -> {
+            validated.add(Set.copyOf(registry.getMacrosNames()));
+            if (registry.getMacros("OLD") != null) {
+                throw new MacrosException("Macros with unknown engines: {cobol=[OLD]}");
+            }
+        };
+        Macros old = macros("OLD", "");
+        old.setEngine("cobol");
+        MacroRegistryFile.open(file, () -> List.of(old), Runnable::run, validator);
+
+        MacroRegistryHolder holder = MacroRegistryFile.open(file, () -> List.of(old, macros("DATE", "")),
+                Runnable::run, validator);
+
+        Assertions.assertEquals(List.of(Set.of("OLD"), Set.of("OLD"), Set.of("OLD", "DATE")), validated);
+        Assertions.assertEquals(old, holder.getMacros("OLD"));
+    }
+
+    private static Macros macros(String name, String content) {
+        Macros macros = new Macros();
+        macros.setUuid(UUID.randomUUID());
+        macros.setProjectUuid(UUID.randomUUID());
+        macros.setEngine("javascript");
+        macros.setName(name);
+        macros.setContent(content);
+        macros.setModifiedWhen(new Date(1_700_000_000_000L));
+        return macros;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.calculator.MacrosCalculator;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.processor.EvaluatorImpl;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+
+public class MacroRegistryHolderTest {
+
+    @Test
+    public void update_duringEvaluation_evaluationKeepsItsSnapshot() {
+        Macros outer = macros("OUTER", "#INNER()");
+        MacroRegistryHolder holder = new MacroRegistryHolder(List.of(outer, macros("INNER", "old")));
+        MacroRegistrySnapshot first = holder.snapshot();
+        List<Macros> updated = List.of(outer, macros("INNER", "new"));
+        MacrosCalculator calculator = (macros, arguments, context) -> {
+            if (macros.getName().equals("OUTER") && holder.snapshot() == first) {
+                holder.update(updated);
+            }
+            return macros.getContent();
+        };
+        EvaluatorImpl evaluator = new EvaluatorImpl(holder, calculator);
+
+        Assertions.assertEquals("old", evaluator.evaluate("#OUTER()", new SimpleContext()));
+        Assertions.assertEquals("new", evaluator.evaluate("#OUTER()", new SimpleContext()));
+        Assertions.assertTrue(holder.snapshot().getVersion() > first.getVersion());
+    }
+
+    @Test
+    public void apply_deltasFromManyThreads_noChangeLost() throws Exception {
+        List<Macros> initial = List.of(macros("FIRST", "first"));
+        MacroRegistryHolder holder = new MacroRegistryHolder(initial);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            Set<String> expected = new HashSet<>(Set.of("FIRST"));
+            for (int t = 0; t < threads; t++) {
+                List<Macros> updated = new ArrayList<>(initial);
+                for (int i = 0; i < 50; i++) {
+                    updated.add(macros("ADDED_" + t + "_" + i, "added"));
+                    expected.add("ADDED_" + t + "_" + i);
+                }
+                MacroRegistryDelta delta = MacroRegistryDelta.compute(initial, updated);
+                tasks.add(() -> {
+                    holder.apply(delta);
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            Assertions.assertEquals(expected, holder.getMacrosNames());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Macros macros(String name, String content) {
+        Macros macros = new Macros();
+        macros.setEngine("javascript");
+        macros.setName(name);
+        macros.setContent(content);
+        return macros;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.model.Macros;
+import org.qubership.atp.macros.core.parser.AntlrParserBackend;
+import org.qubership.atp.macros.core.parser.MacrosTemplateCache;
+import org.qubership.atp.macros.core.processor.Evaluator;
+import org.qubership.atp.macros.core.processor.EvaluatorImpl;
+import org.qubership.atp.macros.core.processor.SimpleContext;
+
+public class MacroRegistryImplTest {
+
+    @Test
+    public void getMacros_nameRangeAfterMapChanges_foundInPlace() {
+        Macros random = macros("RAND");
+        Macros randomBetween = macros("RANDBETWEEN");
+        MacroRegistryImpl registry = new MacroRegistryImpl(List.of(random, randomBetween));
+        String input = "SELECT #RAND(1) FROM t WHERE x ~ '#RANDB(' AND #RANDBETWEEN(1, 2) #UUID(";
+
+        Assertions.assertSame(random, registry.getMacros(input, 8, 12));
+        Assertions.assertNull(registry.getMacros(input, 35, 40));
+        Assertions.assertSame(randomBetween, registry.getMacros(input, 48, 59));
+        Assertions.assertSame(registry.getNameMatcher(), registry.getNameMatcher());
+
+        Macros uuid = macros("UUID");
+        registry.getMacros().put("UUID", uuid);
+        registry.getMacros().keySet().remove("RAND");
+
+        Assertions.assertSame(uuid, registry.getMacros(input, 67, 71));
+        Assertions.assertNull(registry.getMacros(input, 8, 12));
+    }
+
+    @Test
+    public void evaluate_antlrBackend_namesLookedUpByRange() {
+        AtomicInteger copiedNameLookups = new AtomicInteger();
+        MacroRegistryImpl registry = new MacroRegistryImpl(List.of(macros("A"), macros("B"))) {
+            @Override
+            public Macros getMacros(String key) {
+                copiedNameLookups.incrementAndGet();
+                return super.getMacros(key);
+            }
+        };
+        Evaluator evaluator = new EvaluatorImpl(registry, (macros, arguments, context) ->
+                macros.getName() + arguments, new MacrosTemplateCache(), new AntlrParserBackend());
+
+        Assertions.assertEquals("x A[B[], y] #C()", evaluator.evaluate("x #A('#B()', 'y') #C()",
+                new SimpleContext()));
+        Assertions.assertEquals(0, copiedNameLookups.get());
+    }
+
+    private static Macros macros(String name) {
+        Macros macros = new Macros();
+        macros.setName(name);
+        return macros;
+    }
+}
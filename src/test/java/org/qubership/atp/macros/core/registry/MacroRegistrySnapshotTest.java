@@ -0,0 +1,47 @@
+/*
+ * # Copyright 2024-2026 NetCracker Technology Corporation
+ * #
+ * # Licensed under the Apache License, Version 2.0 (the "License");
+ * # you may not use this file except in compliance with the License.
+ * # You may obtain a copy of the License at
+ * #
+ * #      http://www.apache.org/licenses/LICENSE-2.0
+ * #
+ * # Unless required by applicable law or agreed to in writing, software
+ * # distributed under the License is distributed on an "AS IS" BASIS,
+ * # WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * # See the License for the specific language governing permissions and
+ * # limitations under the License.
+ */
+
+package org.qubership.atp.macros.core.registry;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.qubership.atp.macros.core.model.Macros;
+
+public class MacroRegistrySnapshotTest {
+
+    @Test
+    public void getMacros_nameRange_foundInPlace() {
+        Macros random = macros("RAND");
+        Macros randomBetween = macros("RANDBETWEEN");
+        Macros dashed = macros("WITH-DASH");
+        MacroRegistrySnapshot snapshot = new MacroRegistrySnapshot(List.of(random, randomBetween, dashed));
+        String input = "SELECT #RAND(1) FROM t WHERE x ~ '#RANDB(' AND #RANDBETWEEN(1, 2) #WITH-DASH(";
+
+        Assertions.assertSame(random, snapshot.getMacros(input, 8, 12));
+        Assertions.assertNull(snapshot.getMacros(input, 35, 40));
+        Assertions.assertSame(randomBetween, snapshot.getMacros(input, 48, 59));
+        Assertions.assertSame(dashed, snapshot.getMacros(input, 67, 76));
+        Assertions.assertNull(snapshot.getMacros(input, 0, 6));
+    }
+
+    private static Macros macros(String name) {
+        Macros macros = new Macros();
+        macros.setName(name);
+        return macros;
+    }
+}